@@ -0,0 +1,158 @@
+package com.obby.android.blurview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 硬件捕获基准测试
+ * <p>
+ * 在设备上比较硬件捕获与软件捕获同一源视图区域的耗时，两者都包含主线程上的遍历，硬件捕获另含等待GPU、
+ * 读回及复制。基准测试耗时较长，默认跳过，通过{@code -e blurview.benchmark true}开启，结果输出到日志
+ *
+ * @author obby-xiang
+ */
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.Q)
+public class HardwareCaptureBenchmark {
+    private static final String TAG = "HardwareCaptureBenchmark";
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int IN_SAMPLE_SIZE = 4;
+
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 50;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("blurview.benchmark")));
+    }
+
+    @Test
+    public void captureSimpleSource() {
+        compare("simple", 1);
+    }
+
+    @Test
+    public void captureComplexSource() {
+        compare("complex", 200);
+    }
+
+    /**
+     * 比较硬件捕获与软件捕获的耗时
+     *
+     * @param name      名称
+     * @param cardCount 源视图绘制的卡片数
+     */
+    private static void compare(@NonNull final String name, final int cardCount) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final View view = createSourceView(
+                    InstrumentationRegistry.getInstrumentation().getTargetContext(), cardCount);
+            final Rect rect = new Rect(0, 0, WIDTH, HEIGHT);
+            final Bitmap bitmap = Bitmap.createBitmap(WIDTH / IN_SAMPLE_SIZE,
+                    HEIGHT / IN_SAMPLE_SIZE, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas();
+
+            final long softwareNanos = measure(() -> {
+                canvas.setBitmap(bitmap);
+                final int saveCount = canvas.save();
+                canvas.scale(1 / (float) IN_SAMPLE_SIZE, 1 / (float) IN_SAMPLE_SIZE);
+                canvas.clipRect(rect);
+                view.draw(canvas);
+                canvas.restoreToCount(saveCount);
+                canvas.setBitmap(null);
+            });
+
+            final HardwareCapture capture = new HardwareCapture();
+            final long hardwareNanos;
+            try {
+                hardwareNanos = measure(() -> capture.capture(view, bitmap, rect, null,
+                        IN_SAMPLE_SIZE));
+            } finally {
+                capture.release();
+            }
+
+            Log.i(TAG, String.format(Locale.ROOT, "%s: software %.3f ms, hardware %.3f ms",
+                    name, softwareNanos / 1e6, hardwareNanos / 1e6));
+        });
+    }
+
+    /**
+     * 预热后逐次计时
+     *
+     * @param operation 操作
+     * @return 耗时中位数，单位为纳秒
+     */
+    private static long measure(@NonNull final Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        final long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long startTime = System.nanoTime();
+            operation.run();
+            times[i] = System.nanoTime() - startTime;
+        }
+        Arrays.sort(times);
+        return times[ITERATIONS / 2];
+    }
+
+    /**
+     * 创建绘制带阴影圆角卡片的源视图
+     *
+     * @param context   上下文
+     * @param cardCount 卡片数
+     * @return 视图
+     */
+    @NonNull
+    private static View createSourceView(@NonNull final Context context, final int cardCount) {
+        final View view = new View(context) {
+            private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+            {
+                mPaint.setShadowLayer(12f, 0f, 4f, 0x40000000);
+            }
+
+            @Override
+            protected void onDraw(Canvas canvas) {
+                canvas.drawColor(Color.WHITE);
+                for (int i = 0; i < cardCount; i++) {
+                    final float left = i * 37 % (WIDTH - 200);
+                    final float top = i * 53 % (HEIGHT - 120);
+                    mPaint.setColor(Color.HSVToColor(new float[]{i * 7 % 360, 0.5f, 0.9f}));
+                    canvas.drawRoundRect(left, top, left + 200, top + 120, 24f, 24f, mPaint);
+                }
+            }
+        };
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        return view;
+    }
+}
@@ -0,0 +1,114 @@
+package com.obby.android.blurview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 硬件捕获测试，需要真实的渲染器及读取器，在设备上运行
+ *
+ * @author obby-xiang
+ */
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.Q)
+public class HardwareCaptureTest {
+    private static final int SIZE = 64;
+
+    private static final int IN_SAMPLE_SIZE = 2;
+
+    /**
+     * 预乘及反预乘的舍入误差
+     */
+    private static final int TOLERANCE = 2;
+
+    @Test
+    public void capture_translucentSourceMatchesSoftware() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            final View view = createTranslucentView(
+                    InstrumentationRegistry.getInstrumentation().getTargetContext());
+            final Rect rect = new Rect(0, 0, SIZE, SIZE);
+
+            final Bitmap expected = createBitmap();
+            final Canvas canvas = new Canvas(expected);
+            canvas.scale(1 / (float) IN_SAMPLE_SIZE, 1 / (float) IN_SAMPLE_SIZE);
+            view.draw(canvas);
+
+            final Bitmap actual = createBitmap();
+            final HardwareCapture capture = new HardwareCapture();
+            try {
+                assertTrue(capture.capture(view, actual, rect, null, IN_SAMPLE_SIZE));
+            } finally {
+                capture.release();
+            }
+
+            assertPixelsEqual(expected, actual);
+        });
+    }
+
+    /**
+     * 创建左半部分半透明、右半部分透明的视图
+     *
+     * @param context 上下文
+     * @return 视图
+     */
+    @NonNull
+    private static View createTranslucentView(@NonNull final Context context) {
+        final View view = new View(context) {
+            private final Paint mPaint = new Paint();
+
+            {
+                mPaint.setColor(0x80ff0000);
+            }
+
+            @Override
+            protected void onDraw(Canvas canvas) {
+                canvas.drawRect(0, 0, getWidth() / 2f, getHeight(), mPaint);
+            }
+        };
+        view.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, SIZE, SIZE);
+        return view;
+    }
+
+    @NonNull
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(SIZE / IN_SAMPLE_SIZE, SIZE / IN_SAMPLE_SIZE,
+                Bitmap.Config.ARGB_8888);
+    }
+
+    private static void assertPixelsEqual(@NonNull final Bitmap expected,
+                                          @NonNull final Bitmap actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                final int expectedColor = expected.getPixel(x, y);
+                final int actualColor = actual.getPixel(x, y);
+                if (Math.abs(Color.alpha(expectedColor) - Color.alpha(actualColor)) > TOLERANCE
+                        || Math.abs(Color.red(expectedColor) - Color.red(actualColor)) > TOLERANCE
+                        || Math.abs(Color.green(expectedColor) - Color.green(actualColor))
+                        > TOLERANCE
+                        || Math.abs(Color.blue(expectedColor) - Color.blue(actualColor))
+                        > TOLERANCE) {
+                    fail(String.format("pixel (%d, %d): expected #%08x, actual #%08x", x, y,
+                            expectedColor, actualColor));
+                }
+            }
+        }
+    }
+}
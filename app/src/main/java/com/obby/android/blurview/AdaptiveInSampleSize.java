@@ -0,0 +1,120 @@
+package com.obby.android.blurview;
+
+import androidx.annotation.IntRange;
+
+/**
+ * 自适应采样大小
+ * <p>
+ * 根据每次更新（捕获及模糊）的耗时在范围内调整采样大小：平均耗时超出预算时增大采样大小，
+ * 预估减小后的耗时仍明显低于预算时减小采样大小。每次调整后需重新积累足够样本，避免清晰度来回跳变
+ *
+ * @author obby-xiang
+ */
+final class AdaptiveInSampleSize {
+    /**
+     * 耗时指数移动平均的平滑系数
+     */
+    private static final float SMOOTHING_FACTOR = 0.2f;
+
+    /**
+     * 调整前需积累的样本数
+     */
+    private static final int MIN_SAMPLE_COUNT = 8;
+
+    /**
+     * 减小采样大小的预算比例，与增大的阈值形成滞后区间
+     */
+    private static final float DECREASE_BUDGET_RATIO = 0.6f;
+
+    private int mMinInSampleSize = 1;
+
+    private int mMaxInSampleSize = 1;
+
+    /**
+     * 耗时预算
+     */
+    private long mBudgetNanos;
+
+    private int mInSampleSize = 1;
+
+    /**
+     * 平均耗时
+     */
+    private float mAverageNanos;
+
+    private int mSampleCount;
+
+    /**
+     * 设置采样大小范围
+     *
+     * @param minInSampleSize 最小采样大小
+     * @param maxInSampleSize 最大采样大小
+     */
+    void setRange(@IntRange(from = 1) final int minInSampleSize,
+                  @IntRange(from = 1) final int maxInSampleSize) {
+        mMinInSampleSize = minInSampleSize;
+        mMaxInSampleSize = Math.max(maxInSampleSize, minInSampleSize);
+        reset(mInSampleSize);
+    }
+
+    /**
+     * 设置耗时预算
+     *
+     * @param budgetNanos 耗时预算
+     */
+    void setBudgetNanos(final long budgetNanos) {
+        mBudgetNanos = budgetNanos;
+        reset(mInSampleSize);
+    }
+
+    /**
+     * 重置为指定采样大小并清空样本
+     *
+     * @param inSampleSize 采样大小
+     */
+    void reset(final int inSampleSize) {
+        mInSampleSize = Math.min(Math.max(inSampleSize, mMinInSampleSize), mMaxInSampleSize);
+        mAverageNanos = 0f;
+        mSampleCount = 0;
+    }
+
+    /**
+     * 获取当前采样大小
+     *
+     * @return 采样大小
+     */
+    int getInSampleSize() {
+        return mInSampleSize;
+    }
+
+    /**
+     * 记录一次更新的耗时
+     *
+     * @param costNanos 耗时
+     * @return 采样大小是否变化
+     */
+    boolean onUpdateCost(final long costNanos) {
+        mAverageNanos = mSampleCount == 0 ? costNanos
+                : mAverageNanos + (costNanos - mAverageNanos) * SMOOTHING_FACTOR;
+        if (++mSampleCount < MIN_SAMPLE_COUNT || mBudgetNanos <= 0) {
+            return false;
+        }
+
+        final int inSampleSize = mInSampleSize;
+        if (mAverageNanos > mBudgetNanos && inSampleSize < mMaxInSampleSize) {
+            reset(inSampleSize + 1);
+            return true;
+        }
+
+        if (inSampleSize > mMinInSampleSize) {
+            // 耗时近似与像素数即采样大小的平方成反比
+            final float ratio = (float) inSampleSize / (inSampleSize - 1);
+            if (mAverageNanos * ratio * ratio < mBudgetNanos * DECREASE_BUDGET_RATIO) {
+                reset(inSampleSize - 1);
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,219 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * 异步模糊引擎
+ * <p>
+ * 主线程只复制捕获的位图，模糊在后台线程由后台引擎完成后与前台引擎交换，绘制始终使用前台引擎
+ * 最近完成的模糊结果。同一时间最多一个模糊任务执行、一个任务等待，等待期间新的捕获替换旧的捕获
+ *
+ * @author obby-xiang
+ */
+public class AsyncBlurEngine implements BlurEngine {
+    private static final Executor sExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "AsyncBlurEngine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @NonNull
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * 前台引擎，用于绘制
+     */
+    @NonNull
+    private BlurEngine mFrontEngine;
+
+    /**
+     * 后台引擎，用于模糊
+     */
+    @NonNull
+    private BlurEngine mBackEngine;
+
+    @Nullable
+    private Callback mCallback;
+
+    /**
+     * 是否有模糊任务正在执行
+     */
+    private boolean mIsRunning;
+
+    /**
+     * 释放次数，用于丢弃释放前提交的任务结果
+     */
+    private int mGeneration;
+
+    /**
+     * 等待模糊的位图
+     */
+    @Nullable
+    private Bitmap mPendingBitmap;
+
+    private float mPendingBlurRadius;
+
+    private int mPendingInSampleSize;
+
+    /**
+     * 构造异步模糊引擎，前台、后台引擎须为支持后台线程模糊的不同实例
+     *
+     * @param frontEngine 前台引擎
+     * @param backEngine  后台引擎
+     */
+    public AsyncBlurEngine(@NonNull BlurEngine frontEngine, @NonNull BlurEngine backEngine) {
+        if (frontEngine == backEngine) {
+            throw new IllegalArgumentException("front and back engines must be different");
+        }
+
+        mFrontEngine = frontEngine;
+        mBackEngine = backEngine;
+    }
+
+    @Override
+    public boolean isSupported(@NonNull View view) {
+        return mFrontEngine.isSupported(view) && mBackEngine.isSupported(view);
+    }
+
+    @Override
+    public boolean canBlurInBackground() {
+        return false;
+    }
+
+    @Override
+    public void setCallback(@Nullable Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public boolean blur(@NonNull Bitmap bitmap, float blurRadius, int inSampleSize) {
+        // 复制捕获的位图，避免后台模糊期间被下一次捕获覆盖
+        final Bitmap input = BitmapPool.getInstance().acquire(bitmap.getWidth(),
+                bitmap.getHeight(), bitmap.getConfig());
+        mCanvas.setBitmap(input);
+        mCanvas.drawBitmap(bitmap, 0, 0, null);
+        mCanvas.setBitmap(null);
+
+        if (mIsRunning) {
+            // 丢弃过期的等待任务
+            BitmapUtils.releaseBitmap(mPendingBitmap);
+            mPendingBitmap = input;
+            mPendingBlurRadius = blurRadius;
+            mPendingInSampleSize = inSampleSize;
+        } else {
+            start(input, blurRadius, inSampleSize);
+        }
+
+        return false;
+    }
+
+    @Override
+    public long getByteCount() {
+        long byteCount = mFrontEngine.getByteCount();
+        // 执行中的后台引擎在后台线程修改，不计入
+        if (!mIsRunning) {
+            byteCount += mBackEngine.getByteCount();
+        }
+        if (mPendingBitmap != null) {
+            byteCount += mPendingBitmap.getAllocationByteCount();
+        }
+        return byteCount;
+    }
+
+    @Override
+    public void trimMemory() {
+        mFrontEngine.trimMemory();
+
+        // 空闲的后台引擎只在下次模糊时使用，释放后重建
+        if (!mIsRunning) {
+            mBackEngine.release();
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        mFrontEngine.draw(canvas);
+    }
+
+    @Override
+    public void release() {
+        mGeneration++;
+
+        BitmapUtils.releaseBitmap(mPendingBitmap);
+        mPendingBitmap = null;
+
+        mFrontEngine.release();
+
+        // 执行中的后台引擎在任务完成后释放
+        if (!mIsRunning) {
+            mBackEngine.release();
+        }
+    }
+
+    /**
+     * 开始模糊任务
+     *
+     * @param input        输入位图
+     * @param blurRadius   模糊半径
+     * @param inSampleSize 采样大小
+     */
+    private void start(@NonNull final Bitmap input, final float blurRadius,
+                       final int inSampleSize) {
+        final BlurEngine backEngine = mBackEngine;
+        final int generation = mGeneration;
+
+        mIsRunning = true;
+        sExecutor.execute(() -> {
+            backEngine.blur(input, blurRadius, inSampleSize);
+            mMainHandler.post(() -> onCompleted(backEngine, input, generation));
+        });
+    }
+
+    /**
+     * 模糊任务完成
+     *
+     * @param backEngine 执行任务的后台引擎
+     * @param input      输入位图
+     * @param generation 提交任务时的释放次数
+     */
+    private void onCompleted(@NonNull final BlurEngine backEngine, @NonNull final Bitmap input,
+                             final int generation) {
+        mIsRunning = false;
+        BitmapUtils.releaseBitmap(input);
+
+        if (generation == mGeneration) {
+            // 交换前台、后台引擎
+            mBackEngine = mFrontEngine;
+            mFrontEngine = backEngine;
+
+            if (mCallback != null) {
+                mCallback.invalidateBlurEngine(this);
+            }
+        } else {
+            backEngine.release();
+        }
+
+        if (mPendingBitmap != null) {
+            final Bitmap pendingBitmap = mPendingBitmap;
+            mPendingBitmap = null;
+            start(pendingBitmap, mPendingBlurRadius, mPendingInSampleSize);
+        }
+    }
+}
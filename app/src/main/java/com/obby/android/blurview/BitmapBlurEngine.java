@@ -0,0 +1,195 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 位图模糊引擎
+ * <p>
+ * 在CPU侧将采样位图模糊为位图的引擎基类。模糊半径超过子类支持的最大模糊半径时，
+ * 先通过{@link BlurPyramid}逐级下采样，再以缩小后的半径模糊，绘制时放大到视图区域。
+ * 输入位图格式不受子类支持时先转换为{@link Bitmap.Config#ARGB_8888}
+ *
+ * @author obby-xiang
+ */
+public abstract class BitmapBlurEngine implements BlurEngine {
+    /**
+     * 最大模糊半径
+     */
+    private final float mMaxBlurRadius;
+
+    @NonNull
+    private final BlurPyramid mBlurPyramid = new BlurPyramid();
+
+    @NonNull
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    @NonNull
+    private final Canvas mConvertCanvas = new Canvas();
+
+    /**
+     * 格式转换位图
+     */
+    @Nullable
+    private Bitmap mConvertBitmap;
+
+    /**
+     * 绘制区域
+     */
+    @NonNull
+    private final RectF mDrawRect = new RectF();
+
+    /**
+     * 模糊位图，由子类持有
+     */
+    @Nullable
+    private Bitmap mBlurBitmap;
+
+    /**
+     * 已计算像素哈希的位图及其哈希，仅在下一次模糊内有效
+     */
+    @Nullable
+    private Bitmap mHashedBitmap;
+
+    @Nullable
+    private PixelHashes mHashedPixelHashes;
+
+    /**
+     * 本次模糊输入位图的像素哈希
+     */
+    @Nullable
+    private PixelHashes mInputPixelHashes;
+
+    /**
+     * 构造位图模糊引擎
+     *
+     * @param maxBlurRadius 单次模糊支持的最大模糊半径
+     */
+    protected BitmapBlurEngine(float maxBlurRadius) {
+        mMaxBlurRadius = maxBlurRadius;
+    }
+
+    @Override
+    public final boolean blur(@NonNull Bitmap bitmap, float blurRadius, int inSampleSize) {
+        final Bitmap input = convert(mBlurPyramid.downsample(bitmap, blurRadius,
+                mMaxBlurRadius));
+        // 未下采样及转换格式时输入即已计算哈希的位图
+        mInputPixelHashes = input == mHashedBitmap ? mHashedPixelHashes : null;
+        mHashedBitmap = null;
+        mHashedPixelHashes = null;
+
+        final Bitmap oldBlurBitmap = mBlurBitmap;
+        try {
+            mBlurBitmap = onBlur(input, blurRadius / mBlurPyramid.getScale());
+        } finally {
+            mInputPixelHashes = null;
+        }
+        mDrawRect.set(0, 0, bitmap.getWidth() * inSampleSize, bitmap.getHeight() * inSampleSize);
+
+        return mBlurBitmap != oldBlurBitmap;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (mBlurBitmap != null) {
+            canvas.drawBitmap(mBlurBitmap, null, mDrawRect, mPaint);
+        }
+    }
+
+    @Override
+    public long getByteCount() {
+        final Bitmap blurBitmap = mBlurBitmap;
+        final Bitmap convertBitmap = mConvertBitmap;
+        return mBlurPyramid.getByteCount()
+                + (blurBitmap == null ? 0 : blurBitmap.getAllocationByteCount())
+                + (convertBitmap == null ? 0 : convertBitmap.getAllocationByteCount());
+    }
+
+    @Override
+    public final void release() {
+        mBlurPyramid.release();
+        mBlurBitmap = null;
+        mHashedBitmap = null;
+        mHashedPixelHashes = null;
+        if (mConvertBitmap != null) {
+            BitmapUtils.releaseBitmap(mConvertBitmap);
+            mConvertBitmap = null;
+        }
+        onRelease();
+    }
+
+    /**
+     * 设置位图的像素哈希，下一次模糊的输入为该位图时子类可复用哈希，无需再次遍历像素
+     *
+     * @param bitmap      位图
+     * @param pixelHashes 像素哈希
+     */
+    void setPixelHashes(@NonNull final Bitmap bitmap, @NonNull final PixelHashes pixelHashes) {
+        mHashedBitmap = bitmap;
+        mHashedPixelHashes = pixelHashes;
+    }
+
+    /**
+     * 获取本次模糊输入位图的像素哈希，仅在{@link #onBlur}内有效
+     *
+     * @return 像素哈希，未设置或输入已下采样、转换格式时为空
+     */
+    @Nullable
+    PixelHashes getInputPixelHashes() {
+        return mInputPixelHashes;
+    }
+
+    /**
+     * 是否支持位图格式，默认只支持{@link Bitmap.Config#ARGB_8888}
+     *
+     * @param config 位图格式
+     * @return 是否支持
+     */
+    protected boolean isConfigSupported(@NonNull Bitmap.Config config) {
+        return config == Bitmap.Config.ARGB_8888;
+    }
+
+    /**
+     * 模糊位图
+     *
+     * @param bitmap     输入位图
+     * @param blurRadius 模糊半径，不超过最大模糊半径
+     * @return 模糊位图，尺寸与输入位图相同，由子类持有至下次模糊或释放
+     */
+    @NonNull
+    protected abstract Bitmap onBlur(@NonNull Bitmap bitmap, float blurRadius);
+
+    /**
+     * 释放资源
+     */
+    protected abstract void onRelease();
+
+    /**
+     * 将子类不支持的格式转换为{@link Bitmap.Config#ARGB_8888}
+     *
+     * @param bitmap 位图
+     * @return 子类支持的位图，格式受支持时为输入位图
+     */
+    @NonNull
+    private Bitmap convert(@NonNull final Bitmap bitmap) {
+        if (isConfigSupported(bitmap.getConfig())) {
+            if (mConvertBitmap != null) {
+                BitmapUtils.releaseBitmap(mConvertBitmap);
+                mConvertBitmap = null;
+            }
+            return bitmap;
+        }
+
+        mConvertBitmap = BitmapUtils.resetBitmap(mConvertBitmap, bitmap.getWidth(),
+                bitmap.getHeight());
+        mConvertCanvas.setBitmap(mConvertBitmap);
+        mConvertCanvas.drawBitmap(bitmap, 0, 0, null);
+        mConvertCanvas.setBitmap(null);
+        return mConvertBitmap;
+    }
+}
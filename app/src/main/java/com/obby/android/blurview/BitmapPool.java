@@ -0,0 +1,217 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 位图池
+ * <p>
+ * 进程内所有模糊视图共用，按内存大小分桶复用可变位图：借出时通过{@link Bitmap#reconfigure}
+ * 调整为所需尺寸及格式，超出内存预算时按最近最少使用淘汰
+ *
+ * @author obby-xiang
+ */
+public final class BitmapPool {
+    /**
+     * 默认内存预算
+     */
+    public static final long DEFAULT_MAX_SIZE = 8L * 1024 * 1024;
+
+    private static final BitmapPool sInstance = new BitmapPool();
+
+    /**
+     * 池中的位图，按归还顺序排列，末尾为最近归还
+     */
+    @NonNull
+    private final List<Bitmap> mBitmaps = new ArrayList<>();
+
+    /**
+     * 内存预算
+     */
+    private long mMaxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * 池中位图占用的内存
+     */
+    private long mSize;
+
+    private BitmapPool() {
+    }
+
+    /**
+     * 获取位图池
+     *
+     * @return 位图池
+     */
+    @NonNull
+    public static BitmapPool getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * 获取内存预算
+     *
+     * @return 内存预算
+     */
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 设置内存预算
+     *
+     * @param maxSize 内存预算
+     */
+    public synchronized void setMaxSize(@IntRange(from = 0) long maxSize) {
+        mMaxSize = Math.max(maxSize, 0);
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * 获取池中位图占用的内存
+     *
+     * @return 池中位图占用的内存
+     */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    /**
+     * 借出透明的可变位图，池中无合适位图时新建
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return 位图
+     */
+    @NonNull
+    public Bitmap acquire(@IntRange(from = 1) int width, @IntRange(from = 1) int height,
+                          @NonNull Bitmap.Config config) {
+        final Bitmap bitmap = poll(width, height, config);
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * 归还位图，不可复用的位图直接回收
+     *
+     * @param bitmap 位图
+     */
+    public synchronized void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+
+        final int byteCount = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || byteCount > mMaxSize) {
+            bitmap.recycle();
+            return;
+        }
+
+        for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+            if (mBitmaps.get(i) == bitmap) {
+                return;
+            }
+        }
+
+        mBitmaps.add(bitmap);
+        mSize += byteCount;
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * 清空位图池
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 淘汰最近最少使用的位图直至不超过指定内存
+     *
+     * @param maxSize 内存
+     */
+    public synchronized void trimToSize(@IntRange(from = 0) long maxSize) {
+        while (mSize > maxSize && !mBitmaps.isEmpty()) {
+            final Bitmap bitmap = mBitmaps.remove(0);
+            mSize -= bitmap.getAllocationByteCount();
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 取出同一内存分桶或相邻更大分桶中最近归还的位图
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return 位图，无合适位图时返回空
+     */
+    @Nullable
+    private synchronized Bitmap poll(final int width, final int height,
+                                     @NonNull final Bitmap.Config config) {
+        final int byteCount = width * height * getBytesPerPixel(config);
+        final int bucket = getBucket(byteCount);
+
+        for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = mBitmaps.get(i);
+            final int allocationByteCount = bitmap.getAllocationByteCount();
+            final int bitmapBucket = getBucket(allocationByteCount);
+            if (allocationByteCount >= byteCount
+                    && (bitmapBucket == bucket || bitmapBucket == bucket + 1)) {
+                mBitmaps.remove(i);
+                mSize -= allocationByteCount;
+                try {
+                    bitmap.reconfigure(width, height, config);
+                    return bitmap;
+                } catch (IllegalArgumentException e) {
+                    // 行对齐等原因导致内存不足时放弃该位图
+                    bitmap.recycle();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 获取内存分桶，分桶i包含大小在(2^(i-1), 2^i]范围的位图
+     *
+     * @param byteCount 内存大小
+     * @return 分桶
+     */
+    private static int getBucket(final int byteCount) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(byteCount, 1) - 1);
+    }
+
+    /**
+     * 获取每像素字节数
+     *
+     * @param config 格式
+     * @return 每像素字节数
+     */
+    private static int getBytesPerPixel(@NonNull final Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            case RGBA_F16:
+                return 8;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 位图工具
+ *
+ * @author obby-xiang
+ */
+public final class BitmapUtils {
+    private BitmapUtils() {
+    }
+
+    /**
+     * 重置位图，尺寸不符时归还位图池并重新借出
+     *
+     * @param bitmap 位图
+     * @param width  宽度
+     * @param height 高度
+     * @return 重置的位图
+     */
+    @NonNull
+    public static Bitmap resetBitmap(@Nullable final Bitmap bitmap,
+                                     @IntRange(from = 1) final int width,
+                                     @IntRange(from = 1) final int height) {
+        return resetBitmap(bitmap, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * 重置位图，尺寸或格式不符时归还位图池并重新借出
+     *
+     * @param bitmap 位图
+     * @param width  宽度
+     * @param height 高度
+     * @param config 格式
+     * @return 重置的位图
+     */
+    @NonNull
+    public static Bitmap resetBitmap(@Nullable final Bitmap bitmap,
+                                     @IntRange(from = 1) final int width,
+                                     @IntRange(from = 1) final int height,
+                                     @NonNull final Bitmap.Config config) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getWidth() != width || bitmap.getHeight() != height
+                || bitmap.getConfig() != config) {
+            final BitmapPool bitmapPool = BitmapPool.getInstance();
+            bitmapPool.release(bitmap);
+            return bitmapPool.acquire(width, height, config);
+        }
+
+        bitmap.eraseColor(Color.TRANSPARENT);
+
+        return bitmap;
+    }
+
+    /**
+     * 归还位图到位图池
+     *
+     * @param bitmap 位图
+     */
+    public static void releaseBitmap(@Nullable final Bitmap bitmap) {
+        BitmapPool.getInstance().release(bitmap);
+    }
+}
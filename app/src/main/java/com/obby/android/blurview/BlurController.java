@@ -0,0 +1,526 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+import android.util.LongSparseArray;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.animation.AnimationUtils;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 模糊控制器
+ * <p>
+ * 每个捕获源视图（默认为窗口视图，可为任意视图子树）对应一个控制器，
+ * 源视图下的所有模糊视图共用一个绘制前监听，全部为快照模式时移除监听。
+ * 同一次绘制前分发或同一帧的更新帧回调内，本帧会捕获且采样大小、位图格式、捕获方式及像素相位相同的模糊视图
+ * 共用一次捕获：捕获它们覆盖区域的并集后，各模糊视图按整像素偏移直接复制自己的区域，无需插值。捕获前先裁剪到覆盖区域，软件绘制时跳过区域外的子视图，
+ * 捕获开销随覆盖面积而非窗口复杂度增长。开启硬件捕获的模糊视图在API 29及以上通过{@link HardwareCapture}
+ * 在GPU光栅化硬件加速源视图，失败时记录日志并回退到软件绘制
+ *
+ * @author obby-xiang
+ */
+final class BlurController {
+    private static final String TAG = "BlurController";
+
+    private static final int BITMAP_CONFIG_COUNT = Bitmap.Config.values().length;
+
+    private static final Map<View, BlurController> sBlurControllers = new WeakHashMap<>();
+
+    /**
+     * 捕获源视图
+     */
+    @NonNull
+    private final View mSourceView;
+
+    /**
+     * 注册的模糊视图
+     */
+    @NonNull
+    private final List<BlurView> mBlurViews = new ArrayList<>();
+
+    /**
+     * 绘制前分发的模糊视图，分发期间注册或注销模糊视图不影响遍历
+     */
+    @NonNull
+    private final List<BlurView> mDispatchingBlurViews = new ArrayList<>();
+
+    /**
+     * 绘制前分发或当前帧的更新帧回调内会捕获、参与共享捕获的模糊视图，不含暂停及被限流的模糊视图
+     */
+    @NonNull
+    private final List<BlurView> mSharingBlurViews = new ArrayList<>();
+
+    /**
+     * 当前绘制前分发或帧内的共享捕获，按采样大小、位图格式、捕获方式及像素相位索引
+     */
+    @NonNull
+    private final LongSparseArray<SharedCapture> mSharedCaptures = new LongSparseArray<>();
+
+    @NonNull
+    private final Canvas mCanvas = new Canvas();
+
+    @NonNull
+    private final Rect mRect = new Rect();
+
+    private boolean mIsCapturing;
+
+    private boolean mIsDispatchingPreDraw;
+
+    /**
+     * 共享捕获所属的更新帧回调的帧时间，不在帧回调内共享时为-1
+     */
+    private long mFrameTimeMillis = -1L;
+
+    private boolean mIsPreDrawListenerAdded;
+
+    /**
+     * 硬件捕获，未开启硬件捕获、API 29以下、源视图未硬件加速或硬件捕获失败时为空
+     */
+    @Nullable
+    private HardwareCapture mHardwareCapture;
+
+    /**
+     * 硬件捕获是否失败，失败后只使用软件绘制
+     */
+    private boolean mIsHardwareCaptureFailed;
+
+    private final ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = () -> {
+        dispatchPreDraw();
+        return true;
+    };
+
+    private BlurController(@NonNull final View sourceView) {
+        mSourceView = sourceView;
+    }
+
+    /**
+     * 获取源视图的模糊控制器
+     *
+     * @param sourceView 捕获源视图
+     * @return 模糊控制器
+     */
+    @NonNull
+    static BlurController obtain(@NonNull final View sourceView) {
+        BlurController blurController = sBlurControllers.get(sourceView);
+        if (blurController == null) {
+            blurController = new BlurController(sourceView);
+            sBlurControllers.put(sourceView, blurController);
+        }
+        return blurController;
+    }
+
+    /**
+     * 获取捕获源视图
+     *
+     * @return 捕获源视图
+     */
+    @NonNull
+    View getSourceView() {
+        return mSourceView;
+    }
+
+    /**
+     * 注册模糊视图
+     *
+     * @param blurView 模糊视图
+     */
+    void addBlurView(@NonNull final BlurView blurView) {
+        if (mBlurViews.contains(blurView)) {
+            return;
+        }
+
+        mBlurViews.add(blurView);
+        updatePreDrawListener();
+    }
+
+    /**
+     * 注销模糊视图，无模糊视图时释放控制器
+     *
+     * @param blurView 模糊视图
+     */
+    void removeBlurView(@NonNull final BlurView blurView) {
+        if (!mBlurViews.remove(blurView)) {
+            return;
+        }
+        mDispatchingBlurViews.remove(blurView);
+        mSharingBlurViews.remove(blurView);
+
+        updatePreDrawListener();
+        if (mBlurViews.isEmpty()) {
+            releaseSharedCaptures();
+            releaseHardwareCapture();
+            sBlurControllers.remove(mSourceView);
+        }
+    }
+
+    /**
+     * 根据模糊视图是否为快照模式添加或移除绘制前监听
+     */
+    void updatePreDrawListener() {
+        boolean needsPreDraw = false;
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            if (!mBlurViews.get(i).isSnapshot()) {
+                needsPreDraw = true;
+                break;
+            }
+        }
+
+        if (needsPreDraw == mIsPreDrawListenerAdded) {
+            return;
+        }
+
+        final ViewTreeObserver viewTreeObserver = mSourceView.getViewTreeObserver();
+        if (needsPreDraw) {
+            viewTreeObserver.addOnPreDrawListener(mOnPreDrawListener);
+        } else {
+            viewTreeObserver.removeOnPreDrawListener(mOnPreDrawListener);
+        }
+        mIsPreDrawListenerAdded = needsPreDraw;
+    }
+
+    /**
+     * 是否正在捕获，捕获期间模糊视图不绘制
+     *
+     * @return 是否正在捕获
+     */
+    boolean isCapturing() {
+        return mIsCapturing;
+    }
+
+    /**
+     * 捕获模糊视图覆盖区域到位图
+     *
+     * @param blurView     模糊视图
+     * @param bitmap       位图
+     * @param rect         模糊视图相对源视图的区域
+     * @param inSampleSize 采样大小
+     */
+    void capture(@NonNull final BlurView blurView, @NonNull final Bitmap bitmap,
+                    @NonNull final Rect rect, @IntRange(from = 1) final int inSampleSize) {
+        boolean isSharing = mIsDispatchingPreDraw;
+        if (!isSharing && blurView.isDispatchingFrameUpdate()) {
+            beginFrameDispatch(blurView);
+            isSharing = true;
+        }
+
+        final boolean hardwareCapture = blurView.isHardwareCapture();
+        if (isSharing) {
+            final SharedCapture sharedCapture = requireSharedCapture(rect, inSampleSize,
+                    bitmap.getConfig(), hardwareCapture);
+            if (sharedCapture != null && sharedCapture.mRect.contains(rect)) {
+                // 从共享捕获复制模糊视图区域，相位相同时偏移为整像素，无需插值
+                mCanvas.setBitmap(bitmap);
+                mCanvas.drawBitmap(sharedCapture.mBitmap,
+                        (sharedCapture.mRect.left - rect.left) / inSampleSize,
+                        (sharedCapture.mRect.top - rect.top) / inSampleSize, null);
+                mCanvas.setBitmap(null);
+                return;
+            }
+        }
+
+        draw(bitmap, rect, null, inSampleSize, hardwareCapture);
+    }
+
+    /**
+     * 由模糊引擎直接模糊源视图区域，模糊期间模糊视图不绘制
+     *
+     * @param blurView     模糊视图
+     * @param blurEngine   模糊引擎
+     * @param rect         模糊视图相对源视图的区域
+     * @param blurRadius   模糊半径
+     * @param inSampleSize 采样大小
+     * @return 是否已模糊
+     */
+    boolean blurSource(@NonNull final BlurView blurView, @NonNull final BlurEngine blurEngine,
+                       @NonNull final Rect rect, final float blurRadius,
+                       @IntRange(from = 1) final int inSampleSize) {
+        mIsCapturing = true;
+        try {
+            return blurEngine.blurSource(blurView, mSourceView, rect, blurRadius, inSampleSize);
+        } finally {
+            mIsCapturing = false;
+        }
+    }
+
+    /**
+     * 分发绘制前回调
+     */
+    private void dispatchPreDraw() {
+        // 帧回调内的共享捕获不再有效
+        endFrameDispatch();
+
+        // 逐个添加，避免addAll复制数组，快照模式的模糊视图不参与分发；
+        // 只有本帧会捕获的模糊视图参与共享，暂停及被限流的模糊视图不计入捕获区域
+        final long frameTimeMillis = AnimationUtils.currentAnimationTimeMillis();
+        mDispatchingBlurViews.clear();
+        mSharingBlurViews.clear();
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            final BlurView blurView = mBlurViews.get(i);
+            if (!blurView.isSnapshot()) {
+                mDispatchingBlurViews.add(blurView);
+                if (blurView.willCapture(frameTimeMillis)) {
+                    mSharingBlurViews.add(blurView);
+                }
+            }
+        }
+
+        mIsDispatchingPreDraw = true;
+        for (int i = 0; i < mDispatchingBlurViews.size(); i++) {
+            mDispatchingBlurViews.get(i).onSourcePreDraw();
+        }
+        mIsDispatchingPreDraw = false;
+
+        mDispatchingBlurViews.clear();
+        mSharingBlurViews.clear();
+
+        // 共享捕获仅在本次分发内有效
+        invalidateSharedCaptures();
+    }
+
+    /**
+     * 模糊视图在更新帧回调内捕获时开始帧内共享，帧时间变化时重新收集同一帧内待更新且会捕获的模糊视图
+     *
+     * @param blurView 当前更新的模糊视图
+     */
+    private void beginFrameDispatch(@NonNull final BlurView blurView) {
+        // 同一帧内各帧回调的帧时间相同，其他模糊视图的帧回调以该帧时间判断是否会更新
+        final long frameTimeMillis = blurView.getFrameUpdateTimeMillis();
+        if (frameTimeMillis == mFrameTimeMillis) {
+            return;
+        }
+
+        invalidateSharedCaptures();
+        mFrameTimeMillis = frameTimeMillis;
+        mSharingBlurViews.clear();
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            final BlurView view = mBlurViews.get(i);
+            if (!view.isSnapshot() && (view == blurView
+                    || view.hasPendingUpdate() && view.willCapture(frameTimeMillis))) {
+                mSharingBlurViews.add(view);
+            }
+        }
+    }
+
+    /**
+     * 结束帧内共享
+     */
+    private void endFrameDispatch() {
+        if (mFrameTimeMillis >= 0) {
+            mFrameTimeMillis = -1L;
+            mSharingBlurViews.clear();
+            invalidateSharedCaptures();
+        }
+    }
+
+    /**
+     * 使共享捕获失效
+     */
+    private void invalidateSharedCaptures() {
+        for (int i = 0; i < mSharedCaptures.size(); i++) {
+            mSharedCaptures.valueAt(i).mIsValid = false;
+        }
+    }
+
+    /**
+     * 获取当前分发内的共享捕获，参与共享的模糊视图不足两个时返回空。模糊视图区域相对源视图的坐标除以采样大小的余数
+     * 为像素相位，相位相同的模糊视图区域的并集与各区域的偏移均为采样大小的整数倍，复制时为整像素偏移
+     *
+     * @param rect         模糊视图相对源视图的区域
+     * @param inSampleSize 采样大小
+     * @param config       位图格式
+     * @param hardware     是否硬件捕获
+     * @return 共享捕获
+     */
+    @Nullable
+    private SharedCapture requireSharedCapture(@NonNull final Rect rect, final int inSampleSize,
+                                               @NonNull final Bitmap.Config config,
+                                               final boolean hardware) {
+        // 采样大小为正数，与格式序号、捕获方式及相位组合为索引，不同采样大小的索引范围不重叠
+        final int phaseX = Math.floorMod(rect.left, inSampleSize);
+        final int phaseY = Math.floorMod(rect.top, inSampleSize);
+        final long key = ((((long) inSampleSize * BITMAP_CONFIG_COUNT + config.ordinal()) * 2
+                + (hardware ? 1 : 0)) * inSampleSize + phaseY) * inSampleSize + phaseX;
+        SharedCapture sharedCapture = mSharedCaptures.get(key);
+        if (sharedCapture != null && sharedCapture.mIsValid) {
+            return sharedCapture.mBitmap == null ? null : sharedCapture;
+        }
+
+        if (sharedCapture == null) {
+            sharedCapture = new SharedCapture();
+            mSharedCaptures.put(key, sharedCapture);
+        }
+        sharedCapture.mIsValid = true;
+
+        // 计算参数及相位相同的模糊视图覆盖区域的并集，裁剪路径只包含各覆盖区域
+        final Rect unionRect = sharedCapture.mRect;
+        final Path clipPath = sharedCapture.mClipPath;
+        unionRect.setEmpty();
+        clipPath.rewind();
+        int count = 0;
+        for (int i = 0; i < mSharingBlurViews.size(); i++) {
+            final BlurView blurView = mSharingBlurViews.get(i);
+            if (blurView.getEffectiveInSampleSize() != inSampleSize
+                    || blurView.getBitmapConfig() != config
+                    || blurView.isHardwareCapture() != hardware) {
+                continue;
+            }
+
+            final Rect viewRect = ViewUtils.getRectRelativeToTarget(blurView, mSourceView,
+                    mRect);
+            if (viewRect.isEmpty() || Math.floorMod(viewRect.left, inSampleSize) != phaseX
+                    || Math.floorMod(viewRect.top, inSampleSize) != phaseY) {
+                continue;
+            }
+
+            unionRect.union(viewRect);
+            clipPath.addRect(viewRect.left, viewRect.top, viewRect.right, viewRect.bottom,
+                    Path.Direction.CW);
+            count++;
+        }
+
+        if (count < 2 || unionRect.isEmpty()) {
+            if (sharedCapture.mBitmap != null) {
+                BitmapUtils.releaseBitmap(sharedCapture.mBitmap);
+                sharedCapture.mBitmap = null;
+            }
+            return null;
+        }
+
+        final int bitmapWidth = (int) Math.ceil((float) unionRect.width() / inSampleSize);
+        final int bitmapHeight = (int) Math.ceil((float) unionRect.height() / inSampleSize);
+        sharedCapture.mBitmap = BitmapUtils.resetBitmap(sharedCapture.mBitmap,
+                Math.max(bitmapWidth, 1), Math.max(bitmapHeight, 1), config);
+        draw(sharedCapture.mBitmap, unionRect, clipPath, inSampleSize, hardware);
+
+        return sharedCapture;
+    }
+
+    /**
+     * 绘制源视图区域到位图
+     *
+     * @param bitmap       位图
+     * @param rect         相对源视图的区域
+     * @param clipPath     相对源视图的裁剪路径，为空时只裁剪到区域
+     * @param inSampleSize 采样大小
+     * @param hardware     是否硬件捕获
+     */
+    private void draw(@NonNull final Bitmap bitmap, @NonNull final Rect rect,
+                      @Nullable final Path clipPath, final int inSampleSize,
+                      final boolean hardware) {
+        if (hardware && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                && !mIsHardwareCaptureFailed && mSourceView.isHardwareAccelerated()) {
+            if (mHardwareCapture == null) {
+                mHardwareCapture = new HardwareCapture();
+            }
+
+            boolean captured = false;
+            RuntimeException exception = null;
+            mIsCapturing = true;
+            try {
+                captured = mHardwareCapture.capture(mSourceView, bitmap, rect, clipPath,
+                        inSampleSize);
+            } catch (RuntimeException e) {
+                exception = e;
+            } finally {
+                mIsCapturing = false;
+            }
+
+            if (captured) {
+                return;
+            }
+
+            // 渲染器创建、光栅化或读回失败后不再重试，回退到软件绘制
+            Log.w(TAG, "Hardware capture failed, falling back to software drawing", exception);
+            mIsHardwareCaptureFailed = true;
+            releaseHardwareCapture();
+        }
+
+        final Canvas canvas = mCanvas;
+        canvas.setBitmap(bitmap);
+        canvas.setMatrix(null);
+        final int saveCount = canvas.save();
+
+        // 调整画布
+        canvas.scale(1 / (float) inSampleSize, 1 / (float) inSampleSize);
+        canvas.translate(-rect.left, -rect.top);
+
+        // 绘制前裁剪，区域外的子视图被快速拒绝
+        canvas.clipRect(rect);
+        if (clipPath != null) {
+            canvas.clipPath(clipPath);
+        }
+
+        // 绘制源视图
+        mIsCapturing = true;
+        try {
+            mSourceView.draw(canvas);
+        } finally {
+            mIsCapturing = false;
+        }
+
+        canvas.restoreToCount(saveCount);
+        canvas.setBitmap(null);
+    }
+
+    /**
+     * 释放硬件捕获
+     */
+    private void releaseHardwareCapture() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mHardwareCapture != null) {
+            mHardwareCapture.release();
+            mHardwareCapture = null;
+        }
+    }
+
+    /**
+     * 释放共享捕获
+     */
+    private void releaseSharedCaptures() {
+        for (int i = 0; i < mSharedCaptures.size(); i++) {
+            final SharedCapture sharedCapture = mSharedCaptures.valueAt(i);
+            if (sharedCapture.mBitmap != null) {
+                BitmapUtils.releaseBitmap(sharedCapture.mBitmap);
+                sharedCapture.mBitmap = null;
+            }
+        }
+        mSharedCaptures.clear();
+    }
+
+    /**
+     * 共享捕获
+     */
+    private static final class SharedCapture {
+        /**
+         * 捕获区域，相对源视图
+         */
+        @NonNull
+        final Rect mRect = new Rect();
+
+        /**
+         * 裁剪路径，各模糊视图覆盖区域，相对源视图
+         */
+        @NonNull
+        final Path mClipPath = new Path();
+
+        @Nullable
+        Bitmap mBitmap;
+
+        /**
+         * 是否在当前分发内有效
+         */
+        boolean mIsValid;
+    }
+}
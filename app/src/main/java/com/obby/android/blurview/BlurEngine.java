@@ -0,0 +1,139 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.FloatRange;
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 模糊引擎
+ * <p>
+ * 输入视图覆盖区域的采样位图，输出模糊结果并绘制到视图。引擎实例持有模糊状态，不能在多个视图间共享
+ *
+ * @author obby-xiang
+ */
+public interface BlurEngine {
+    /**
+     * 是否支持视图
+     *
+     * @param view 视图
+     * @return 是否支持
+     */
+    default boolean isSupported(@NonNull View view) {
+        return true;
+    }
+
+    /**
+     * 是否支持在后台线程模糊
+     *
+     * @return 是否支持
+     */
+    default boolean canBlurInBackground() {
+        return true;
+    }
+
+    /**
+     * 是否支持直接模糊源视图，支持时同一窗口内的源视图无需捕获为位图，由{@link #blurSource}代替{@link #blur}
+     *
+     * @return 是否支持
+     */
+    default boolean canBlurSource() {
+        return false;
+    }
+
+    /**
+     * 直接模糊源视图区域，引用源视图的绘制命令，无需捕获为位图。源视图不包含视图，
+     * 包含视图的源视图（如窗口视图）仍捕获为位图，以比较内容哈希跳过未变化的更新。
+     * 仅在源视图变化或区域、参数变化时调用，模糊结果需要重绘时通过回调通知
+     *
+     * @param view         视图
+     * @param sourceView   源视图，与视图同一窗口且不包含视图
+     * @param rect         视图相对源视图的区域
+     * @param blurRadius   模糊半径
+     * @param inSampleSize 采样大小
+     * @return 是否已模糊，未模糊时回退到捕获为位图后{@link #blur}
+     */
+    default boolean blurSource(@NonNull View view, @NonNull View sourceView, @NonNull Rect rect,
+                               @FloatRange(from = 0f, fromInclusive = false) float blurRadius,
+                               @IntRange(from = 1) int inSampleSize) {
+        return false;
+    }
+
+    /**
+     * 设置回调，异步产生模糊结果的引擎通过回调通知重绘
+     *
+     * @param callback 回调
+     */
+    default void setCallback(@Nullable Callback callback) {
+    }
+
+    /**
+     * 获取持有的位图及像素缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    default long getByteCount() {
+        return 0;
+    }
+
+    /**
+     * 释放可重建的缓冲，不影响当前模糊结果，内存不足时调用
+     */
+    default void trimMemory() {
+    }
+
+    /**
+     * 模糊位图
+     *
+     * @param bitmap       视图覆盖区域的采样位图
+     * @param blurRadius   模糊半径
+     * @param inSampleSize 采样大小
+     * @return 是否重绘视图
+     */
+    boolean blur(@NonNull Bitmap bitmap,
+                 @FloatRange(from = 0f, fromInclusive = false) float blurRadius,
+                 @IntRange(from = 1) int inSampleSize);
+
+    /**
+     * 绘制模糊结果
+     *
+     * @param canvas 视图画布
+     */
+    void draw(@NonNull Canvas canvas);
+
+    /**
+     * 释放资源，释放后仍可再次模糊
+     */
+    void release();
+
+    /**
+     * 模糊引擎回调
+     */
+    interface Callback {
+        /**
+         * 模糊结果更新，需要重绘
+         *
+         * @param blurEngine 模糊引擎
+         */
+        void invalidateBlurEngine(@NonNull BlurEngine blurEngine);
+    }
+
+    /**
+     * 模糊引擎工厂
+     */
+    interface Factory {
+        /**
+         * 创建模糊引擎
+         *
+         * @param view 视图
+         * @return 模糊引擎
+         */
+        @NonNull
+        BlurEngine create(@NonNull View view);
+    }
+}
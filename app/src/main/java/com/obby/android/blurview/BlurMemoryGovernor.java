@@ -0,0 +1,287 @@
+package com.obby.android.blurview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.SystemClock;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模糊内存管理
+ * <p>
+ * 进程内所有模糊视图共用，统计附加到窗口的模糊视图（位图及像素缓冲）及位图池占用的内存。
+ * 超出内存预算时依次释放引擎的后台缓冲、清空位图池、成倍提高所有模糊视图的采样大小，内存充足后逐步恢复；
+ * 系统内存不足时（{@link ComponentCallbacks2#onTrimMemory}）释放不可见模糊视图的缓存。
+ * 仅在主线程调用
+ *
+ * @author obby-xiang
+ */
+public final class BlurMemoryGovernor implements ComponentCallbacks2 {
+    /**
+     * 默认内存预算
+     */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    /**
+     * 最大采样大小倍数
+     */
+    static final int MAX_IN_SAMPLE_SIZE_SCALE = 8;
+
+    /**
+     * 两次调整采样大小倍数的最小间隔，等待各模糊视图按新的采样大小更新
+     */
+    private static final long SCALE_INTERVAL_MILLIS = 500L;
+
+    /**
+     * 两次释放引擎后台缓冲的最小间隔，避免每次更新都释放并重建后台缓冲
+     */
+    private static final long TRIM_INTERVAL_MILLIS = 500L;
+
+    private static final BlurMemoryGovernor sInstance = new BlurMemoryGovernor();
+
+    /**
+     * 附加到窗口的模糊视图
+     */
+    @NonNull
+    private final List<BlurView> mBlurViews = new ArrayList<>();
+
+    /**
+     * 注册组件回调的应用上下文
+     */
+    @Nullable
+    private Context mContext;
+
+    /**
+     * 内存预算
+     */
+    private long mMaxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * 采样大小倍数
+     */
+    private int mInSampleSizeScale = 1;
+
+    /**
+     * 上次调整采样大小倍数的时间
+     */
+    private long mScaleTimeMillis;
+
+    /**
+     * 上次释放引擎后台缓冲的时间
+     */
+    private long mTrimTimeMillis;
+
+    /**
+     * 上次执行内存预算后占用的内存，为-1时下次执行需重新释放
+     */
+    private long mEnforcedSize = -1L;
+
+    /**
+     * 上次执行内存预算时的采样大小倍数
+     */
+    private int mEnforcedInSampleSizeScale = 1;
+
+    private BlurMemoryGovernor() {
+    }
+
+    /**
+     * 获取模糊内存管理
+     *
+     * @return 模糊内存管理
+     */
+    @NonNull
+    public static BlurMemoryGovernor getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * 获取内存预算
+     *
+     * @return 内存预算
+     */
+    public long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 设置内存预算
+     *
+     * @param maxSize 内存预算
+     */
+    public void setMaxSize(@IntRange(from = 0) long maxSize) {
+        mMaxSize = Math.max(maxSize, 0);
+        mScaleTimeMillis = 0;
+        mTrimTimeMillis = 0;
+        mEnforcedSize = -1L;
+        enforce();
+    }
+
+    /**
+     * 获取模糊视图及位图池占用的内存
+     *
+     * @return 内存大小
+     */
+    public long getSize() {
+        long size = BitmapPool.getInstance().getSize();
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            size += mBlurViews.get(i).getByteCount();
+        }
+        return size;
+    }
+
+    /**
+     * 获取采样大小倍数，超出内存预算时成倍提高
+     *
+     * @return 采样大小倍数
+     */
+    int getInSampleSizeScale() {
+        return mInSampleSizeScale;
+    }
+
+    /**
+     * 注册模糊视图，首个模糊视图注册时注册组件回调
+     *
+     * @param blurView 模糊视图
+     */
+    void register(@NonNull BlurView blurView) {
+        if (mBlurViews.contains(blurView)) {
+            return;
+        }
+
+        mBlurViews.add(blurView);
+        if (mContext == null) {
+            mContext = blurView.getContext().getApplicationContext();
+            mContext.registerComponentCallbacks(this);
+        }
+    }
+
+    /**
+     * 注销模糊视图，最后一个模糊视图注销时注销组件回调并恢复采样大小倍数
+     *
+     * @param blurView 模糊视图
+     */
+    void unregister(@NonNull BlurView blurView) {
+        mBlurViews.remove(blurView);
+        if (mBlurViews.isEmpty() && mContext != null) {
+            mContext.unregisterComponentCallbacks(this);
+            mContext = null;
+            mInSampleSizeScale = 1;
+            mEnforcedSize = -1L;
+        }
+    }
+
+    /**
+     * 模糊视图更新后检查内存预算
+     */
+    void onUpdated() {
+        enforce();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // 释放的位图归还位图池，最后清空位图池
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // 界面不可见，释放所有模糊视图的缓存
+            releaseCaches(true);
+            BitmapPool.getInstance().clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            releaseCaches(false);
+            trimBlurEngines();
+            BitmapPool.getInstance().clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    /**
+     * 执行内存预算
+     */
+    private void enforce() {
+        if (mBlurViews.isEmpty()) {
+            return;
+        }
+
+        final long nowMillis = SystemClock.uptimeMillis();
+        long size = getSize();
+
+        // 占用的内存及采样大小倍数自上次执行后未变化时，已释放过的缓冲及位图池无需再次释放，只按间隔调整采样大小倍数
+        if (size > mMaxSize && (size != mEnforcedSize
+                || mInSampleSizeScale != mEnforcedInSampleSizeScale)) {
+            // 释放的后台缓冲归还位图池，先释放再清空位图池
+            if (nowMillis - mTrimTimeMillis >= TRIM_INTERVAL_MILLIS) {
+                mTrimTimeMillis = nowMillis;
+                trimBlurEngines();
+            }
+
+            // 位图池已空时无需清空
+            final BitmapPool bitmapPool = BitmapPool.getInstance();
+            if (bitmapPool.getSize() > 0) {
+                bitmapPool.clear();
+            }
+            size = getSize();
+        }
+        mEnforcedSize = size;
+        mEnforcedInSampleSizeScale = mInSampleSizeScale;
+
+        if (nowMillis - mScaleTimeMillis < SCALE_INTERVAL_MILLIS) {
+            return;
+        }
+
+        // 采样大小减半时内存约增长为4倍，预留余量避免反复调整
+        if (size > mMaxSize && mInSampleSizeScale < MAX_IN_SAMPLE_SIZE_SCALE) {
+            setInSampleSizeScale(mInSampleSizeScale * 2, nowMillis);
+        } else if (mInSampleSizeScale > 1 && size * 4 <= mMaxSize * 3 / 4) {
+            setInSampleSizeScale(mInSampleSizeScale / 2, nowMillis);
+        }
+    }
+
+    /**
+     * 设置采样大小倍数并重新模糊所有模糊视图
+     *
+     * @param inSampleSizeScale 采样大小倍数
+     * @param nowMillis         当前时间
+     */
+    private void setInSampleSizeScale(final int inSampleSizeScale, final long nowMillis) {
+        mInSampleSizeScale = inSampleSizeScale;
+        mScaleTimeMillis = nowMillis;
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            mBlurViews.get(i).refresh();
+        }
+    }
+
+    /**
+     * 释放模糊视图的缓存
+     *
+     * @param all 是否释放所有模糊视图，否则只释放不可见的模糊视图
+     */
+    private void releaseCaches(final boolean all) {
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            final BlurView blurView = mBlurViews.get(i);
+            if (all || !blurView.isShown()) {
+                blurView.releaseCaches();
+            }
+        }
+    }
+
+    /**
+     * 释放所有模糊视图引擎的后台缓冲
+     */
+    private void trimBlurEngines() {
+        for (int i = 0; i < mBlurViews.size(); i++) {
+            mBlurViews.get(i).trimBlurEngine();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.obby.android.blurview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 模糊指标
+ * <p>
+ * 记录模糊视图最近一次更新各阶段的耗时及累计的更新次数。捕获耗时包含内容指纹计算，
+ * 绘制耗时为最近一次绘制的耗时
+ *
+ * @author obby-xiang
+ */
+public final class BlurMetrics {
+    long mCaptureTimeNanos;
+
+    long mBlurTimeNanos;
+
+    long mDrawTimeNanos;
+
+    long mUpdateCount;
+
+    long mSkippedUpdateCount;
+
+    long mSuspendedUpdateCount;
+
+    long mCoalescedUpdateCount;
+
+    long mByteCount;
+
+    int mInSampleSize;
+
+    @Nullable
+    String mBlurEngineName;
+
+    BlurMetrics() {
+    }
+
+    BlurMetrics(@NonNull final BlurMetrics metrics) {
+        set(metrics);
+    }
+
+    /**
+     * 获取最近一次捕获耗时
+     *
+     * @return 捕获耗时，单位为纳秒
+     */
+    public long getCaptureTimeNanos() {
+        return mCaptureTimeNanos;
+    }
+
+    /**
+     * 获取最近一次模糊耗时，跳过模糊时为0
+     *
+     * @return 模糊耗时，单位为纳秒
+     */
+    public long getBlurTimeNanos() {
+        return mBlurTimeNanos;
+    }
+
+    /**
+     * 获取最近一次绘制耗时
+     *
+     * @return 绘制耗时，单位为纳秒
+     */
+    public long getDrawTimeNanos() {
+        return mDrawTimeNanos;
+    }
+
+    /**
+     * 获取更新次数，包含跳过模糊的更新
+     *
+     * @return 更新次数
+     */
+    public long getUpdateCount() {
+        return mUpdateCount;
+    }
+
+    /**
+     * 获取因捕获内容未变化跳过模糊的更新次数
+     *
+     * @return 跳过次数
+     */
+    public long getSkippedUpdateCount() {
+        return mSkippedUpdateCount;
+    }
+
+    /**
+     * 获取因窗口不可见、视图滚出可见区域或被不透明同级视图完全覆盖而暂停的更新次数，暂停的更新不计入更新次数
+     *
+     * @return 暂停次数
+     */
+    public long getSuspendedUpdateCount() {
+        return mSuspendedUpdateCount;
+    }
+
+    /**
+     * 获取被合并到同一帧或因限流推迟的更新请求次数
+     *
+     * @return 合并次数
+     */
+    public long getCoalescedUpdateCount() {
+        return mCoalescedUpdateCount;
+    }
+
+    /**
+     * 获取捕获位图、内容哈希及模糊引擎持有的位图及像素缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    public long getByteCount() {
+        return mByteCount;
+    }
+
+    /**
+     * 获取最近一次更新的采样大小
+     *
+     * @return 采样大小
+     */
+    public int getInSampleSize() {
+        return mInSampleSize;
+    }
+
+    /**
+     * 获取使用中的模糊引擎名称
+     *
+     * @return 模糊引擎名称，未更新时为空
+     */
+    @Nullable
+    public String getBlurEngineName() {
+        return mBlurEngineName;
+    }
+
+    void set(@NonNull final BlurMetrics metrics) {
+        mCaptureTimeNanos = metrics.mCaptureTimeNanos;
+        mBlurTimeNanos = metrics.mBlurTimeNanos;
+        mDrawTimeNanos = metrics.mDrawTimeNanos;
+        mUpdateCount = metrics.mUpdateCount;
+        mSkippedUpdateCount = metrics.mSkippedUpdateCount;
+        mSuspendedUpdateCount = metrics.mSuspendedUpdateCount;
+        mCoalescedUpdateCount = metrics.mCoalescedUpdateCount;
+        mByteCount = metrics.mByteCount;
+        mInSampleSize = metrics.mInSampleSize;
+        mBlurEngineName = metrics.mBlurEngineName;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "BlurMetrics{"
+                + "captureTimeNanos=" + mCaptureTimeNanos
+                + ", blurTimeNanos=" + mBlurTimeNanos
+                + ", drawTimeNanos=" + mDrawTimeNanos
+                + ", updateCount=" + mUpdateCount
+                + ", skippedUpdateCount=" + mSkippedUpdateCount
+                + ", suspendedUpdateCount=" + mSuspendedUpdateCount
+                + ", coalescedUpdateCount=" + mCoalescedUpdateCount
+                + ", byteCount=" + mByteCount
+                + ", inSampleSize=" + mInSampleSize
+                + ", blurEngineName=" + mBlurEngineName
+                + '}';
+    }
+
+    /**
+     * 模糊指标监听
+     */
+    public interface Listener {
+        /**
+         * 模糊视图更新后回调，指标对象被复用，需保留时复制所需的值
+         *
+         * @param blurView 模糊视图
+         * @param metrics  模糊指标
+         */
+        void onBlurMetrics(@NonNull BlurView blurView, @NonNull BlurMetrics metrics);
+    }
+}
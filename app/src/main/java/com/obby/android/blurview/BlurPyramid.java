@@ -0,0 +1,131 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模糊金字塔
+ * <p>
+ * 模糊半径超过引擎的最大模糊半径时，将位图逐级减半（双线性过滤即2x2均值）直至半径不超过最大模糊半径，
+ * 在最后一级以缩小后的半径模糊，绘制时再放大，模糊开销不随半径增长。各级位图与输入位图格式相同，跨帧复用
+ *
+ * @author obby-xiang
+ */
+final class BlurPyramid {
+    /**
+     * 默认最大模糊半径
+     */
+    static final float DEFAULT_MAX_BLUR_RADIUS = 25f;
+
+    /**
+     * 各级位图
+     */
+    @NonNull
+    private final List<Bitmap> mLevels = new ArrayList<>();
+
+    @NonNull
+    private final Canvas mCanvas = new Canvas();
+
+    @NonNull
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * 最后一级相对输入的缩放倍数
+     */
+    private int mScale = 1;
+
+    /**
+     * 逐级下采样位图
+     *
+     * @param bitmap        输入位图
+     * @param blurRadius    模糊半径
+     * @param maxBlurRadius 最大模糊半径
+     * @return 最后一级位图，无需下采样时为输入位图
+     */
+    @NonNull
+    Bitmap downsample(@NonNull final Bitmap bitmap, final float blurRadius,
+                      final float maxBlurRadius) {
+        int levelCount = 0;
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        float radius = blurRadius;
+        while (radius > maxBlurRadius && width > 1 && height > 1) {
+            radius /= 2;
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+            levelCount++;
+        }
+
+        trimLevels(levelCount);
+
+        Bitmap source = bitmap;
+        for (int i = 0; i < levelCount; i++) {
+            final Bitmap oldLevel = i < mLevels.size() ? mLevels.get(i) : null;
+            final Bitmap level = BitmapUtils.resetBitmap(oldLevel, (source.getWidth() + 1) / 2,
+                    (source.getHeight() + 1) / 2, bitmap.getConfig());
+            if (i < mLevels.size()) {
+                mLevels.set(i, level);
+            } else {
+                mLevels.add(level);
+            }
+
+            mCanvas.setBitmap(level);
+            mCanvas.setMatrix(null);
+            mCanvas.scale(0.5f, 0.5f);
+            mCanvas.drawBitmap(source, 0, 0, mPaint);
+            mCanvas.setBitmap(null);
+
+            source = level;
+        }
+
+        mScale = 1 << levelCount;
+        return source;
+    }
+
+    /**
+     * 获取最后一级相对输入的缩放倍数
+     *
+     * @return 缩放倍数
+     */
+    int getScale() {
+        return mScale;
+    }
+
+    /**
+     * 获取各级位图占用的内存
+     *
+     * @return 内存大小
+     */
+    long getByteCount() {
+        long byteCount = 0;
+        for (int i = 0; i < mLevels.size(); i++) {
+            byteCount += mLevels.get(i).getAllocationByteCount();
+        }
+        return byteCount;
+    }
+
+    /**
+     * 释放各级位图
+     */
+    void release() {
+        trimLevels(0);
+        mScale = 1;
+    }
+
+    /**
+     * 释放多余的级
+     *
+     * @param levelCount 保留的级数
+     */
+    private void trimLevels(final int levelCount) {
+        while (mLevels.size() > levelCount) {
+            BitmapUtils.releaseBitmap(mLevels.remove(mLevels.size() - 1));
+        }
+    }
+}
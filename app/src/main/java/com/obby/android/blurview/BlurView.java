@@ -4,31 +4,22 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.DrawFilter;
 import android.graphics.Paint;
 import android.graphics.PaintFlagsDrawFilter;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.RecordingCanvas;
 import android.graphics.Rect;
-import android.graphics.RenderEffect;
-import android.graphics.RenderNode;
-import android.graphics.Shader;
 import android.os.Build;
-import android.renderscript.Allocation;
-import android.renderscript.Element;
-import android.renderscript.RenderScript;
-import android.renderscript.ScriptIntrinsicBlur;
+import android.os.Trace;
 import android.util.AttributeSet;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver;
 
 import androidx.annotation.FloatRange;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.RequiresApi;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -44,9 +35,9 @@ import java.util.stream.Collectors;
  */
 public class BlurView extends View {
     /**
-     * 最大模糊半径
+     * 最大模糊半径，超过引擎单次模糊能力的半径通过逐级下采样实现
      */
-    public static final float MAX_BLUR_RADIUS = 25f;
+    public static final float MAX_BLUR_RADIUS = 250f;
 
     /**
      * 默认模糊半径
@@ -58,8 +49,72 @@ public class BlurView extends View {
      */
     public static final int DEFAULT_IN_SAMPLE_SIZE = 4;
 
+    /**
+     * 默认最大模糊频率，不限制
+     */
+    public static final int DEFAULT_MAX_BLUR_RATE = 0;
+
+    /**
+     * 默认自适应最小采样大小
+     */
+    public static final int DEFAULT_MIN_IN_SAMPLE_SIZE = 1;
+
+    /**
+     * 默认自适应最大采样大小
+     */
+    public static final int DEFAULT_MAX_IN_SAMPLE_SIZE = 8;
+
+    /**
+     * 默认自适应耗时预算，单位为毫秒
+     */
+    public static final float DEFAULT_BLUR_BUDGET = 4f;
+
+    /**
+     * 默认模糊引擎工厂，API 31及以上的硬件加速视图使用{@link RenderEffectBlurEngine}，
+     * 否则使用{@link StackBlurEngine}
+     */
+    public static final BlurEngine.Factory DEFAULT_BLUR_ENGINE_FACTORY = view -> {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && view.isHardwareAccelerated()) {
+            return new RenderEffectBlurEngine();
+        }
+        return new StackBlurEngine();
+    };
+
     private static final String TAG = "BlurView";
 
+    private static final String TRACE_CAPTURE = TAG + "#capture";
+
+    private static final String TRACE_BLUR = TAG + "#blur";
+
+    private static final String TRACE_DRAW = TAG + "#draw";
+
+    private static final String TRACE_BYTE_COUNT = TAG + "#byteCount";
+
+    private static final String TRACE_IN_SAMPLE_SIZE = TAG + "#inSampleSize";
+
+    private static final int BLUR_ENGINE_AUTO = 0;
+
+    private static final int BLUR_ENGINE_RENDER_EFFECT = 1;
+
+    private static final int BLUR_ENGINE_RENDER_SCRIPT = 2;
+
+    private static final int BLUR_ENGINE_STACK_BLUR = 3;
+
+    private static final int BLUR_ENGINE_TILED_BLUR = 4;
+
+    private static final int BITMAP_CONFIG_ARGB_8888 = 0;
+
+    private static final int BITMAP_CONFIG_RGB_565 = 1;
+
+    private static final int BITMAP_CONFIG_ALPHA_8 = 2;
+
+    /**
+     * 全局模糊引擎工厂
+     */
+    @NonNull
+    private static volatile BlurEngine.Factory sDefaultBlurEngineFactory =
+            DEFAULT_BLUR_ENGINE_FACTORY;
+
     /**
      * 模糊半径
      */
@@ -72,149 +127,697 @@ public class BlurView extends View {
     @IntRange(from = 1)
     private int mInSampleSize;
 
+    /**
+     * 最大模糊频率
+     */
+    @IntRange(from = 0)
+    private int mMaxBlurRate;
+
+    /**
+     * 是否自适应采样大小
+     */
+    private boolean mAdaptiveInSampleSize;
+
+    /**
+     * 自适应最小采样大小
+     */
+    @IntRange(from = 1)
+    private int mMinInSampleSize;
+
+    /**
+     * 自适应最大采样大小
+     */
+    @IntRange(from = 1)
+    private int mMaxInSampleSize;
+
+    /**
+     * 自适应耗时预算，单位为毫秒
+     */
+    @FloatRange(from = 0f, fromInclusive = false)
+    private float mBlurBudget;
+
+    @NonNull
+    private final AdaptiveInSampleSize mAdaptiveSampler = new AdaptiveInSampleSize();
+
     /**
      * 不模糊视图
      */
     @NonNull
     private final Set<View> mViewExcludes;
 
+    /**
+     * 不模糊视图遮罩
+     */
+    @NonNull
+    private final ViewExcludeMask mViewExcludeMask = new ViewExcludeMask();
+
+    /**
+     * 布局或滚动变化时使不模糊视图遮罩失效
+     */
+    private final ViewTreeObserver.OnGlobalLayoutListener mOnGlobalLayoutListener =
+            this::onLayoutOrScrollChanged;
+
+    private final ViewTreeObserver.OnScrollChangedListener mOnScrollChangedListener =
+            this::onLayoutOrScrollChanged;
+
+    /**
+     * 绘制前检查不模糊视图是否在布局外移动，如平移、属性动画及过渡
+     */
+    private final ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = () -> {
+        if (mViewExcludeMask.checkMoved(this)) {
+            invalidate();
+        }
+        return true;
+    };
+
+    /**
+     * 是否暂停更新，暂停期间跳过捕获及模糊，恢复时强制模糊一次
+     */
+    private boolean mIsSuspended;
+
+    /**
+     * 可见区域缓存
+     */
+    @NonNull
+    private final Rect mVisibleRect = new Rect();
+
+    /**
+     * 同级视图可见区域缓存
+     */
+    @NonNull
+    private final Rect mSiblingRect = new Rect();
+
     @Nullable
     private final View mWindowDecorView;
 
-    private boolean mIsUpdating;
+    /**
+     * 捕获源视图，为空时使用属性指定的源视图或窗口视图
+     */
+    @Nullable
+    private View mBlurSource;
+
+    /**
+     * 属性指定的捕获源视图编号
+     */
+    private int mBlurSourceId;
 
     @Nullable
-    private Canvas mCanvas;
+    private BlurController mBlurController;
 
+    /**
+     * 模糊引擎，为空时使用全局模糊引擎工厂创建
+     */
     @Nullable
-    private Paint mPaint;
+    private BlurEngine mBlurEngine;
 
+    /**
+     * 全局模糊引擎工厂创建的模糊引擎
+     */
     @Nullable
-    private RenderScript mRenderScript;
+    private BlurEngine mDefaultBlurEngine;
 
+    /**
+     * 当前使用的模糊引擎
+     */
     @Nullable
-    private ScriptIntrinsicBlur mBlurScript;
+    private BlurEngine mActiveBlurEngine;
+
+    /**
+     * 属性指定的模糊引擎类型
+     */
+    private int mBlurEngineType;
+
+    /**
+     * 是否异步模糊
+     */
+    private boolean mAsyncBlur;
+
+    /**
+     * 是否快照模式
+     */
+    private boolean mSnapshot;
+
+    /**
+     * 是否硬件捕获
+     */
+    private boolean mHardwareCapture;
+
+    /**
+     * 捕获及模糊位图格式
+     */
+    @NonNull
+    private Bitmap.Config mBitmapConfig;
+
+    private final BlurEngine.Callback mBlurEngineCallback = blurEngine -> {
+        if (blurEngine == mActiveBlurEngine) {
+            invalidate();
+        }
+    };
 
     @Nullable
     private Bitmap mViewBitmap;
 
-    @Nullable
-    private Bitmap mBlurBitmap;
+    /**
+     * 捕获内容哈希
+     */
+    @NonNull
+    private final ContentHash mContentHash = new ContentHash();
 
-    @Nullable
-    private RenderNode mBlurRenderNode;
+    /**
+     * 上次模糊的内容哈希
+     */
+    private long mBlurContentHash;
+
+    /**
+     * 上次模糊的内容哈希是否有效
+     */
+    private boolean mHasBlurContentHash;
+
+    /**
+     * 上次直接模糊源视图的区域及参数
+     */
+    @NonNull
+    private final Rect mSourceBlurRect = new Rect();
+
+    private float mSourceBlurRadius;
+
+    private int mSourceInSampleSize;
+
+    /**
+     * 上次直接模糊源视图的区域及参数是否有效
+     */
+    private boolean mHasSourceBlur;
+
+    /**
+     * 视图区域缓存
+     */
+    @NonNull
+    private final Rect mViewRect = new Rect();
 
     private final DrawFilter mDrawFilter = new PaintFlagsDrawFilter(Paint.DITHER_FLAG,
             Paint.FILTER_BITMAP_FLAG);
 
-    private final ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = () -> {
-        update();
-        return true;
-    };
+    @NonNull
+    private final UpdateScheduler mUpdateScheduler = new UpdateScheduler(this::update);
+
+    /**
+     * 模糊指标
+     */
+    @NonNull
+    private final BlurMetrics mBlurMetrics = new BlurMetrics();
+
+    @Nullable
+    private BlurMetrics.Listener mBlurMetricsListener;
 
     /**
      * 构造模糊视图
      *
-     * @param context 上下文
+     * @param context 上下文
+     */
+    public BlurView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    /**
+     * 构造模糊视图
+     *
+     * @param context 上下文
+     * @param attrs   属性
+     */
+    public BlurView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+
+        mWindowDecorView = ViewUtils.getWindowDecorView(context);
+        mViewExcludes = new CopyOnWriteArraySet<>();
+
+        final TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.BlurView);
+        final float blurRadius = typedArray.getFloat(R.styleable.BlurView_blurRadius,
+                DEFAULT_BLUR_RADIUS);
+        final int inSampleSize = typedArray.getInt(R.styleable.BlurView_inSampleSize,
+                DEFAULT_IN_SAMPLE_SIZE);
+        final int blurEngine = typedArray.getInt(R.styleable.BlurView_blurEngine,
+                BLUR_ENGINE_AUTO);
+        final int maxBlurRate = typedArray.getInt(R.styleable.BlurView_maxBlurRate,
+                DEFAULT_MAX_BLUR_RATE);
+        final boolean asyncBlur = typedArray.getBoolean(R.styleable.BlurView_asyncBlur, false);
+        final boolean snapshot = typedArray.getBoolean(R.styleable.BlurView_snapshot, false);
+        final boolean hardwareCapture = typedArray.getBoolean(
+                R.styleable.BlurView_hardwareCapture, false);
+        final int bitmapConfig = typedArray.getInt(R.styleable.BlurView_bitmapConfig,
+                BITMAP_CONFIG_ARGB_8888);
+        final int blurSourceId = typedArray.getResourceId(R.styleable.BlurView_blurSource,
+                View.NO_ID);
+        final boolean adaptiveInSampleSize = typedArray.getBoolean(
+                R.styleable.BlurView_adaptiveInSampleSize, false);
+        final int minInSampleSize = typedArray.getInt(R.styleable.BlurView_minInSampleSize,
+                DEFAULT_MIN_IN_SAMPLE_SIZE);
+        final int maxInSampleSize = typedArray.getInt(R.styleable.BlurView_maxInSampleSize,
+                DEFAULT_MAX_IN_SAMPLE_SIZE);
+        final float blurBudget = typedArray.getFloat(R.styleable.BlurView_blurBudget,
+                DEFAULT_BLUR_BUDGET);
+        typedArray.recycle();
+
+        mBlurRadius = validateBlurRadius(blurRadius) ? blurRadius : DEFAULT_BLUR_RADIUS;
+        mInSampleSize = validateInSampleSize(inSampleSize) ? inSampleSize : DEFAULT_IN_SAMPLE_SIZE;
+        mAsyncBlur = asyncBlur;
+        mSnapshot = snapshot;
+        mHardwareCapture = hardwareCapture;
+        mBitmapConfig = toBitmapConfig(bitmapConfig);
+        mBlurSourceId = blurSourceId;
+        mBlurEngineType = blurEngine;
+        mBlurEngine = createBlurEngine(blurEngine);
+        mMaxBlurRate = validateMaxBlurRate(maxBlurRate) ? maxBlurRate : DEFAULT_MAX_BLUR_RATE;
+        mUpdateScheduler.setMaxUpdateRate(mMaxBlurRate);
+
+        mAdaptiveInSampleSize = adaptiveInSampleSize;
+        if (validateInSampleSize(minInSampleSize) && validateInSampleSize(maxInSampleSize)
+                && minInSampleSize <= maxInSampleSize) {
+            mMinInSampleSize = minInSampleSize;
+            mMaxInSampleSize = maxInSampleSize;
+        } else {
+            mMinInSampleSize = DEFAULT_MIN_IN_SAMPLE_SIZE;
+            mMaxInSampleSize = DEFAULT_MAX_IN_SAMPLE_SIZE;
+        }
+        mBlurBudget = validateBlurBudget(blurBudget) ? blurBudget : DEFAULT_BLUR_BUDGET;
+        mAdaptiveSampler.setRange(mMinInSampleSize, mMaxInSampleSize);
+        mAdaptiveSampler.setBudgetNanos((long) (mBlurBudget * 1_000_000L));
+        mAdaptiveSampler.reset(mInSampleSize);
+    }
+
+    /**
+     * 获取全局模糊引擎工厂
+     *
+     * @return 全局模糊引擎工厂
+     */
+    @NonNull
+    public static BlurEngine.Factory getDefaultBlurEngineFactory() {
+        return sDefaultBlurEngineFactory;
+    }
+
+    /**
+     * 设置全局模糊引擎工厂，对之后开始模糊且未设置模糊引擎的视图生效
+     *
+     * @param factory 全局模糊引擎工厂，为空时恢复为{@link #DEFAULT_BLUR_ENGINE_FACTORY}
+     */
+    public static void setDefaultBlurEngineFactory(@Nullable BlurEngine.Factory factory) {
+        sDefaultBlurEngineFactory = factory == null ? DEFAULT_BLUR_ENGINE_FACTORY : factory;
+    }
+
+    /**
+     * 获取模糊半径
+     *
+     * @return 模糊半径
+     */
+    public float getBlurRadius() {
+        return mBlurRadius;
+    }
+
+    /**
+     * 设置模糊半径
+     *
+     * @param blurRadius 模糊半径
+     */
+    public void setBlurRadius(float blurRadius) {
+        if (!validateBlurRadius(blurRadius) || blurRadius == mBlurRadius) {
+            return;
+        }
+
+        mBlurRadius = blurRadius;
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 获取采样大小
+     *
+     * @return 采样大小
+     */
+    public int getInSampleSize() {
+        return mInSampleSize;
+    }
+
+    /**
+     * 设置采样大小
+     *
+     * @param inSampleSize 采样大小
+     */
+    public void setInSampleSize(int inSampleSize) {
+        if (!validateInSampleSize(inSampleSize) || inSampleSize == mInSampleSize) {
+            return;
+        }
+
+        mInSampleSize = inSampleSize;
+        mAdaptiveSampler.reset(inSampleSize);
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 是否自适应采样大小
+     *
+     * @return 是否自适应采样大小
+     */
+    public boolean isAdaptiveInSampleSize() {
+        return mAdaptiveInSampleSize;
+    }
+
+    /**
+     * 设置是否自适应采样大小，开启后从采样大小开始，根据每次捕获及模糊的耗时在采样大小范围内调整，
+     * 使耗时不超过预算，调整时保持模糊效果在屏幕上的半径不变
+     *
+     * @param adaptiveInSampleSize 是否自适应采样大小
+     */
+    public void setAdaptiveInSampleSize(boolean adaptiveInSampleSize) {
+        if (adaptiveInSampleSize == mAdaptiveInSampleSize) {
+            return;
+        }
+
+        mAdaptiveInSampleSize = adaptiveInSampleSize;
+        mAdaptiveSampler.reset(mInSampleSize);
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 获取自适应最小采样大小
+     *
+     * @return 自适应最小采样大小
+     */
+    public int getMinInSampleSize() {
+        return mMinInSampleSize;
+    }
+
+    /**
+     * 获取自适应最大采样大小
+     *
+     * @return 自适应最大采样大小
+     */
+    public int getMaxInSampleSize() {
+        return mMaxInSampleSize;
+    }
+
+    /**
+     * 设置自适应采样大小范围
+     *
+     * @param minInSampleSize 最小采样大小
+     * @param maxInSampleSize 最大采样大小
+     */
+    public void setInSampleSizeRange(int minInSampleSize, int maxInSampleSize) {
+        if (!validateInSampleSize(minInSampleSize) || !validateInSampleSize(maxInSampleSize)
+                || minInSampleSize > maxInSampleSize || (minInSampleSize == mMinInSampleSize
+                && maxInSampleSize == mMaxInSampleSize)) {
+            return;
+        }
+
+        mMinInSampleSize = minInSampleSize;
+        mMaxInSampleSize = maxInSampleSize;
+        mAdaptiveSampler.setRange(minInSampleSize, maxInSampleSize);
+        if (mAdaptiveInSampleSize) {
+            mUpdateScheduler.requestUpdate(true);
+        }
+    }
+
+    /**
+     * 获取自适应耗时预算
+     *
+     * @return 每次捕获及模糊的耗时预算，单位为毫秒
+     */
+    public float getBlurBudget() {
+        return mBlurBudget;
+    }
+
+    /**
+     * 设置自适应耗时预算
+     *
+     * @param blurBudget 每次捕获及模糊的耗时预算，单位为毫秒
+     */
+    public void setBlurBudget(float blurBudget) {
+        if (!validateBlurBudget(blurBudget) || blurBudget == mBlurBudget) {
+            return;
+        }
+
+        mBlurBudget = blurBudget;
+        mAdaptiveSampler.setBudgetNanos((long) (blurBudget * 1_000_000L));
+    }
+
+    /**
+     * 获取不模糊视图
+     *
+     * @return 不模糊视图
+     */
+    @NonNull
+    public Collection<View> getViewExcludes() {
+        return Collections.unmodifiableCollection(mViewExcludes);
+    }
+
+    /**
+     * 设置不模糊视图
+     *
+     * @param viewExcludes 不模糊视图
+     */
+    public void setViewExcludes(@Nullable Collection<View> viewExcludes) {
+        final Set<View> excludes = viewExcludes == null ? Collections.emptySet()
+                : viewExcludes.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (excludes.containsAll(mViewExcludes) && mViewExcludes.containsAll(excludes)) {
+            return;
+        }
+
+        mViewExcludes.clear();
+        mViewExcludes.addAll(excludes);
+        mViewExcludeMask.setViews(excludes.toArray(new View[0]));
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 获取捕获源视图
+     *
+     * @return 捕获源视图，为空时使用属性指定的源视图或窗口视图
+     */
+    @Nullable
+    public View getBlurSource() {
+        return mBlurSource;
+    }
+
+    /**
+     * 设置捕获源视图，只捕获并模糊源视图子树，如列表等模糊视图下方的容器，捕获开销随之减小；
+     * 也可用于对话框、弹窗等不属于界面窗口的模糊视图。源视图下方的内容不会被捕获，
+     * 也可通过{@code app:blurSource}属性指定祖先或同级视图的编号
+     *
+     * @param blurSource 捕获源视图，为空时使用属性指定的源视图或窗口视图
+     */
+    public void setBlurSource(@Nullable View blurSource) {
+        if (blurSource == mBlurSource) {
+            return;
+        }
+
+        mBlurSource = blurSource;
+        if (isAttachedToWindow()) {
+            unbindBlurController();
+            bindBlurController();
+            mUpdateScheduler.requestUpdate(true);
+        }
+    }
+
+    /**
+     * 使不模糊视图遮罩失效，不模糊视图的布局、位置、变换及滚动变化时自动失效，
+     * 轮廓在布局外变化时需调用
+     */
+    public void invalidateViewExcludes() {
+        mViewExcludeMask.invalidate();
+        invalidate();
+    }
+
+    /**
+     * 获取模糊引擎
+     *
+     * @return 模糊引擎，为空时使用全局模糊引擎工厂创建
+     */
+    @Nullable
+    public BlurEngine getBlurEngine() {
+        return mBlurEngine;
+    }
+
+    /**
+     * 设置模糊引擎，引擎不支持当前视图时使用全局模糊引擎工厂创建
+     *
+     * @param blurEngine 模糊引擎，为空时使用全局模糊引擎工厂创建
+     */
+    public void setBlurEngine(@Nullable BlurEngine blurEngine) {
+        if (blurEngine == mBlurEngine) {
+            return;
+        }
+
+        if (mBlurEngine != null) {
+            mBlurEngine.release();
+        }
+
+        mBlurEngine = blurEngine;
+        mBlurEngineType = BLUR_ENGINE_AUTO;
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 获取模糊指标快照
+     *
+     * @return 模糊指标
+     */
+    @NonNull
+    public BlurMetrics getBlurMetrics() {
+        mBlurMetrics.mCoalescedUpdateCount = mUpdateScheduler.getCoalescedCount();
+        return new BlurMetrics(mBlurMetrics);
+    }
+
+    /**
+     * 设置模糊指标监听，每次更新后回调
+     *
+     * @param listener 模糊指标监听
+     */
+    public void setBlurMetricsListener(@Nullable BlurMetrics.Listener listener) {
+        mBlurMetricsListener = listener;
+    }
+
+    /**
+     * 是否异步模糊
+     *
+     * @return 是否异步模糊
+     */
+    public boolean isAsyncBlur() {
+        return mAsyncBlur;
+    }
+
+    /**
+     * 设置是否异步模糊，异步模糊时主线程只捕获，模糊在后台线程完成，绘制最近完成的模糊结果。
+     * 仅对视图创建的支持后台线程模糊的引擎生效，通过{@link #setBlurEngine}设置的引擎可使用
+     * {@link AsyncBlurEngine}包装
+     *
+     * @param asyncBlur 是否异步模糊
+     */
+    public void setAsyncBlur(boolean asyncBlur) {
+        if (asyncBlur == mAsyncBlur) {
+            return;
+        }
+
+        mAsyncBlur = asyncBlur;
+
+        if (mBlurEngineType != BLUR_ENGINE_AUTO) {
+            if (mBlurEngine != null) {
+                mBlurEngine.release();
+            }
+            mBlurEngine = createBlurEngine(mBlurEngineType);
+        }
+
+        if (mDefaultBlurEngine != null) {
+            mDefaultBlurEngine.release();
+            mDefaultBlurEngine = null;
+        }
+
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 是否快照模式
+     *
+     * @return 是否快照模式
      */
-    public BlurView(@NonNull Context context) {
-        this(context, null);
+    public boolean isSnapshot() {
+        return mSnapshot;
     }
 
     /**
-     * 构造模糊视图
+     * 设置是否快照模式，快照模式时只在附加到窗口、尺寸变化及调用{@link #refresh()}时模糊，
+     * 不再监听窗口绘制，适用于对话框等覆盖在静态内容上的视图
      *
-     * @param context 上下文
-     * @param attrs   属性
+     * @param snapshot 是否快照模式
      */
-    public BlurView(@NonNull Context context, @Nullable AttributeSet attrs) {
-        super(context, attrs);
-
-        mWindowDecorView = ViewUtils.getWindowDecorView(context);
-        mViewExcludes = new CopyOnWriteArraySet<>();
-
-        final TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.BlurView);
-        final float blurRadius = typedArray.getFloat(R.styleable.BlurView_blurRadius,
-                DEFAULT_BLUR_RADIUS);
-        final int inSampleSize = typedArray.getInt(R.styleable.BlurView_inSampleSize,
-                DEFAULT_IN_SAMPLE_SIZE);
-        typedArray.recycle();
+    public void setSnapshot(boolean snapshot) {
+        if (snapshot == mSnapshot) {
+            return;
+        }
 
-        mBlurRadius = validateBlurRadius(blurRadius) ? blurRadius : DEFAULT_BLUR_RADIUS;
-        mInSampleSize = validateInSampleSize(inSampleSize) ? inSampleSize : DEFAULT_IN_SAMPLE_SIZE;
+        mSnapshot = snapshot;
+        if (mBlurController != null) {
+            mBlurController.updatePreDrawListener();
+        }
+        mUpdateScheduler.requestUpdate(true);
     }
 
     /**
-     * 获取模糊半径
+     * 是否硬件捕获
      *
-     * @return 模糊半径
+     * @return 是否硬件捕获
      */
-    public float getBlurRadius() {
-        return mBlurRadius;
+    public boolean isHardwareCapture() {
+        return mHardwareCapture;
     }
 
     /**
-     * 设置模糊半径
+     * 设置是否硬件捕获，默认关闭。开启后API 29及以上的硬件加速源视图在GPU光栅化后读回，
+     * 仍需在主线程遍历源视图并等待GPU完成，读回及复制也在主线程，只在源视图光栅化开销（如大量路径、阴影或大图缩放）
+     * 明显高于遍历时更快，开启前应通过基准测试与软件捕获比较。直接模糊源视图时不捕获，不受影响
      *
-     * @param blurRadius 模糊半径
+     * @param hardwareCapture 是否硬件捕获
      */
-    public void setBlurRadius(float blurRadius) {
-        if (!validateBlurRadius(blurRadius) || blurRadius == mBlurRadius) {
+    public void setHardwareCapture(boolean hardwareCapture) {
+        if (hardwareCapture == mHardwareCapture) {
             return;
         }
 
-        mBlurRadius = blurRadius;
-        post(() -> update(true));
+        mHardwareCapture = hardwareCapture;
+        mUpdateScheduler.requestUpdate(true);
     }
 
     /**
-     * 获取采样大小
+     * 重新捕获并模糊，用于快照模式下底层内容变化时刷新
+     */
+    public void refresh() {
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    /**
+     * 获取捕获及模糊位图格式
      *
-     * @return 采样大小
+     * @return 位图格式
      */
-    public int getInSampleSize() {
-        return mInSampleSize;
+    @NonNull
+    public Bitmap.Config getBitmapConfig() {
+        return mBitmapConfig;
     }
 
     /**
-     * 设置采样大小
+     * 设置捕获及模糊位图格式，默认为{@link Bitmap.Config#ARGB_8888}。底层内容不透明时可使用
+     * {@link Bitmap.Config#RGB_565}，只需模糊透明度（如遮罩）时可使用{@link Bitmap.Config#ALPHA_8}，
+     * 位图内存分别减半及减为四分之一，引擎不支持的格式在模糊前转换为{@link Bitmap.Config#ARGB_8888}
      *
-     * @param inSampleSize 采样大小
+     * @param bitmapConfig 位图格式，仅支持{@link Bitmap.Config#ARGB_8888}、
+     *                     {@link Bitmap.Config#RGB_565}及{@link Bitmap.Config#ALPHA_8}
      */
-    public void setInSampleSize(int inSampleSize) {
-        if (!validateInSampleSize(inSampleSize) || inSampleSize == mInSampleSize) {
+    public void setBitmapConfig(@NonNull Bitmap.Config bitmapConfig) {
+        if (!validateBitmapConfig(bitmapConfig) || bitmapConfig == mBitmapConfig) {
             return;
         }
 
-        mInSampleSize = inSampleSize;
-        post(() -> update(true));
+        mBitmapConfig = bitmapConfig;
+        mUpdateScheduler.requestUpdate(true);
     }
 
     /**
-     * 获取不模糊视图
+     * 获取最大模糊频率
      *
-     * @return 不模糊视图
+     * @return 每秒最大模糊次数，为0时不限制
      */
-    @NonNull
-    public Collection<View> getViewExcludes() {
-        return Collections.unmodifiableCollection(mViewExcludes);
+    public int getMaxBlurRate() {
+        return mMaxBlurRate;
     }
 
     /**
-     * 设置不模糊视图
+     * 设置最大模糊频率，限制期间复用上次的模糊结果
      *
-     * @param viewExcludes 不模糊视图
+     * @param maxBlurRate 每秒最大模糊次数，为0时不限制
      */
-    public void setViewExcludes(@Nullable Collection<View> viewExcludes) {
-        final Set<View> excludes = viewExcludes == null ? Collections.emptySet()
-                : viewExcludes.stream().filter(Objects::nonNull).collect(Collectors.toSet());
-        if (excludes.containsAll(mViewExcludes) && mViewExcludes.containsAll(excludes)) {
+    public void setMaxBlurRate(int maxBlurRate) {
+        if (!validateMaxBlurRate(maxBlurRate) || maxBlurRate == mMaxBlurRate) {
             return;
         }
 
-        mViewExcludes.clear();
-        mViewExcludes.addAll(excludes);
-        post(() -> update(true));
+        mMaxBlurRate = maxBlurRate;
+        mUpdateScheduler.setMaxUpdateRate(maxBlurRate);
     }
 
     private boolean validateBlurRadius(final float blurRadius) {
@@ -225,289 +828,645 @@ public class BlurView extends View {
         return inSampleSize > 0;
     }
 
-    @Override
-    protected void onAttachedToWindow() {
-        super.onAttachedToWindow();
-        if (mWindowDecorView != null) {
-            mWindowDecorView.getViewTreeObserver().addOnPreDrawListener(mOnPreDrawListener);
-        }
+    private boolean validateMaxBlurRate(final int maxBlurRate) {
+        return maxBlurRate >= 0;
+    }
 
-        post(() -> update(true));
+    private boolean validateBitmapConfig(@NonNull final Bitmap.Config bitmapConfig) {
+        return bitmapConfig == Bitmap.Config.ARGB_8888 || bitmapConfig == Bitmap.Config.RGB_565
+                || bitmapConfig == Bitmap.Config.ALPHA_8;
     }
 
-    @Override
-    protected void onDetachedFromWindow() {
-        super.onDetachedFromWindow();
-        if (mWindowDecorView != null) {
-            mWindowDecorView.getViewTreeObserver().removeOnPreDrawListener(mOnPreDrawListener);
-        }
+    private boolean validateBlurBudget(final float blurBudget) {
+        return blurBudget > 0;
+    }
 
-        if (mBlurRenderNode != null) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                mBlurRenderNode.discardDisplayList();
-            }
-            mBlurRenderNode = null;
-        }
+    /**
+     * 获取实际使用的采样大小
+     *
+     * @return 采样大小
+     */
+    int getEffectiveInSampleSize() {
+        final int inSampleSize = mAdaptiveInSampleSize ? mAdaptiveSampler.getInSampleSize()
+                : mInSampleSize;
+        return inSampleSize * BlurMemoryGovernor.getInstance().getInSampleSizeScale();
+    }
+
+    /**
+     * 获取实际使用的模糊半径，实际使用的采样大小因自适应或内存预算变化时按采样大小换算，
+     * 保持屏幕上的模糊半径不变
+     *
+     * @param inSampleSize 实际使用的采样大小
+     * @return 模糊半径
+     */
+    private float getEffectiveBlurRadius(final int inSampleSize) {
+        return mBlurRadius * mInSampleSize / inSampleSize;
+    }
+
+    /**
+     * 获取持有的位图及像素缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    long getByteCount() {
+        return (mViewBitmap == null ? 0 : mViewBitmap.getAllocationByteCount())
+                + mContentHash.getByteCount()
+                + (mActiveBlurEngine == null ? 0 : mActiveBlurEngine.getByteCount());
+    }
 
-        if (mBlurBitmap != null) {
-            mBlurBitmap.recycle();
-            mBlurBitmap = null;
+    /**
+     * 释放模糊引擎及捕获位图，再次可见时重新模糊
+     */
+    void releaseCaches() {
+        if (mActiveBlurEngine != null) {
+            mActiveBlurEngine.setCallback(null);
+            mActiveBlurEngine.release();
+            mActiveBlurEngine = null;
         }
 
         if (mViewBitmap != null) {
-            mViewBitmap.recycle();
+            BitmapUtils.releaseBitmap(mViewBitmap);
             mViewBitmap = null;
         }
 
-        if (mBlurScript != null) {
-            mBlurScript.destroy();
-            mBlurScript = null;
-        }
+        mContentHash.release();
+        mHasBlurContentHash = false;
+        mHasSourceBlur = false;
+    }
 
-        if (mRenderScript != null) {
-            mRenderScript.destroy();
-            mRenderScript = null;
+    /**
+     * 释放模糊引擎的后台缓冲
+     */
+    void trimBlurEngine() {
+        if (mActiveBlurEngine != null) {
+            mActiveBlurEngine.trimMemory();
         }
     }
 
     @Override
-    public void draw(Canvas canvas) {
-        // 更新模糊时不绘制
-        if (mIsUpdating) {
-            return;
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        bindBlurController();
+
+        final ViewTreeObserver viewTreeObserver = getViewTreeObserver();
+        viewTreeObserver.addOnGlobalLayoutListener(mOnGlobalLayoutListener);
+        viewTreeObserver.addOnScrollChangedListener(mOnScrollChangedListener);
+        viewTreeObserver.addOnPreDrawListener(mOnPreDrawListener);
+        mViewExcludeMask.invalidate();
+        BlurMemoryGovernor.getInstance().register(this);
+
+        mUpdateScheduler.requestUpdate(true);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        // 快照模式不监听绘制，尺寸变化时重新模糊
+        if (mSnapshot) {
+            mUpdateScheduler.requestUpdate(true);
         }
+    }
 
-        super.draw(canvas);
+    /**
+     * 注册到捕获源视图的模糊控制器
+     */
+    private void bindBlurController() {
+        final View sourceView = resolveBlurSource();
+        if (sourceView != null) {
+            mBlurController = BlurController.obtain(sourceView);
+            mBlurController.addBlurView(this);
+        }
+    }
 
-        canvas.saveLayer(0, 0, getWidth(), getHeight(), requirePaint());
+    /**
+     * 从模糊控制器注销
+     */
+    private void unbindBlurController() {
+        if (mBlurController != null) {
+            mBlurController.removeBlurView(this);
+            mBlurController = null;
+        }
+    }
 
-        // 开启双线性插值优化缩放效果
-        canvas.setDrawFilter(mDrawFilter);
+    /**
+     * 解析捕获源视图，依次为设置的源视图、属性指定编号的最近祖先或祖先子树内的视图、窗口视图
+     *
+     * @return 捕获源视图
+     */
+    @Nullable
+    private View resolveBlurSource() {
+        if (mBlurSource != null) {
+            return mBlurSource;
+        }
 
-        if (mBlurRenderNode != null && canvas.isHardwareAccelerated()) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                canvas.drawRenderNode(mBlurRenderNode);
-            }
-        } else {
-            if (mBlurBitmap != null) {
-                canvas.save();
-                canvas.scale(mInSampleSize, mInSampleSize);
-                canvas.drawBitmap(mBlurBitmap, 0, 0, null);
-                canvas.restore();
+        if (mBlurSourceId != View.NO_ID) {
+            ViewParent parent = getParent();
+            while (parent instanceof View) {
+                final View sourceView = ((View) parent).findViewById(mBlurSourceId);
+                if (sourceView != null) {
+                    return sourceView;
+                }
+                parent = parent.getParent();
             }
         }
 
-        // 处理不模糊区域
-        applyViewExcludes(canvas);
+        return mWindowDecorView;
+    }
 
-        canvas.restore();
+    /**
+     * 捕获源视图绘制前回调
+     */
+    void onSourcePreDraw() {
+        mUpdateScheduler.onPreDraw();
     }
 
     /**
-     * 更新模糊
+     * 是否有待处理的帧回调更新
+     *
+     * @return 是否有待处理的更新
      */
-    private void update() {
-        update(false);
+    boolean hasPendingUpdate() {
+        return mUpdateScheduler.isUpdatePending();
     }
 
     /**
-     * 更新模糊
+     * 是否正在更新帧回调内更新
      *
-     * @param invalidate 是否重绘视图
+     * @return 是否正在更新
      */
-    private void update(boolean invalidate) {
-        if (!isShown() || getWidth() <= 0 || getHeight() <= 0) {
-            return;
-        }
+    boolean isDispatchingFrameUpdate() {
+        return mUpdateScheduler.isDispatchingFrame();
+    }
 
-        mIsUpdating = true;
+    /**
+     * 获取正在分发的更新帧回调的帧时间
+     *
+     * @return 帧时间
+     */
+    long getFrameUpdateTimeMillis() {
+        return mUpdateScheduler.getDispatchingFrameTimeMillis();
+    }
 
-        final boolean shouldInvalidate;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && isHardwareAccelerated()) {
-            shouldInvalidate = blurApi31();
-        } else {
-            shouldInvalidate = blur();
+    /**
+     * 在给定帧时间分发时是否会捕获为位图：可见且未暂停更新，本帧尚未更新且未被限流，
+     * 且当前模糊引擎不直接模糊源视图
+     *
+     * @param frameTimeMillis 帧时间
+     * @return 是否会捕获
+     */
+    boolean willCapture(final long frameTimeMillis) {
+        if (mBlurController == null || !isShown() || getWidth() <= 0 || getHeight() <= 0
+                || !mUpdateScheduler.willUpdate(frameTimeMillis) || isUpdateSuspended()) {
+            return false;
         }
 
-        mIsUpdating = false;
+        return mActiveBlurEngine == null || !mActiveBlurEngine.canBlurSource()
+                || !canBlurSource(mBlurController.getSourceView());
+    }
 
-        if (invalidate || shouldInvalidate) {
-            invalidate();
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        unbindBlurController();
+
+        final ViewTreeObserver viewTreeObserver = getViewTreeObserver();
+        viewTreeObserver.removeOnGlobalLayoutListener(mOnGlobalLayoutListener);
+        viewTreeObserver.removeOnScrollChangedListener(mOnScrollChangedListener);
+        viewTreeObserver.removeOnPreDrawListener(mOnPreDrawListener);
+
+        mUpdateScheduler.cancel();
+        BlurMemoryGovernor.getInstance().unregister(this);
+        releaseCaches();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        restoreReleasedCaches();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        restoreReleasedCaches();
+        resumeIfSuspended();
+    }
+
+    /**
+     * 布局或滚动变化时使不模糊视图遮罩失效，滚动回可见区域时恢复更新
+     */
+    private void onLayoutOrScrollChanged() {
+        mViewExcludeMask.invalidate();
+        resumeIfSuspended();
+    }
+
+    /**
+     * 暂停的更新恢复条件满足时请求一次强制更新，快照模式不监听绘制，需主动请求
+     */
+    private void resumeIfSuspended() {
+        if (mIsSuspended && mBlurController != null && isShown() && !isUpdateSuspended()) {
+            mUpdateScheduler.requestUpdate(true);
         }
     }
 
     /**
-     * 模糊视图处理
+     * 是否暂停更新：窗口不可见（被不透明界面覆盖、多窗口下处于后台等），视图滚出父视图可见区域，
+     * 或被后绘制的不透明同级视图完全覆盖。不依据窗口焦点，被半透明对话框覆盖、分屏未获焦点
+     * 及不可获取焦点的弹出窗口中的模糊视图仍可见
+     *
+     * @return 是否暂停更新
+     */
+    private boolean isUpdateSuspended() {
+        return getWindowVisibility() != VISIBLE || !getGlobalVisibleRect(mVisibleRect)
+                || isOccluded(mVisibleRect);
+    }
+
+    /**
+     * 是否被祖先视图中后绘制的不透明同级视图完全覆盖，不考虑自定义绘制顺序
      *
-     * @return 是否重绘视图
+     * @param visibleRect 视图在窗口的可见区域
+     * @return 是否被完全覆盖
+     */
+    private boolean isOccluded(@NonNull final Rect visibleRect) {
+        View child = this;
+        ViewParent parent = getParent();
+        while (parent instanceof ViewGroup) {
+            final ViewGroup viewGroup = (ViewGroup) parent;
+            final float z = child.getZ();
+            for (int i = viewGroup.indexOfChild(child) + 1; i < viewGroup.getChildCount(); i++) {
+                final View sibling = viewGroup.getChildAt(i);
+                if (sibling.getVisibility() == VISIBLE && sibling.isOpaque()
+                        && sibling.getZ() >= z && sibling.getGlobalVisibleRect(mSiblingRect)
+                        && mSiblingRect.contains(visibleRect)) {
+                    return true;
+                }
+            }
+            child = viewGroup;
+            parent = viewGroup.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * 缓存因内存不足被释放后再次可见时重新模糊，快照模式不监听绘制，需主动请求
      */
-    private boolean blur() {
-        if (mRenderScript == null) {
-            mRenderScript = RenderScript.create(getContext());
+    private void restoreReleasedCaches() {
+        if (mBlurController != null && mActiveBlurEngine == null && isShown()) {
+            mUpdateScheduler.requestUpdate(true);
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        // 捕获时不绘制
+        if (mBlurController != null && mBlurController.isCapturing()) {
+            return;
         }
 
-        final Bitmap viewBitmap = createViewBitmap();
-        final Allocation allocIn = Allocation.createFromBitmap(mRenderScript, viewBitmap);
-        final Allocation allocOut = Allocation.createTyped(mRenderScript, allocIn.getType());
+        super.draw(canvas);
+
+        final long startTimeNanos = System.nanoTime();
+        Trace.beginSection(TRACE_DRAW);
 
-        if (mBlurScript == null) {
-            mBlurScript = ScriptIntrinsicBlur.create(mRenderScript, Element.U8_4(mRenderScript));
+        final int saveCount = canvas.save();
+        canvas.clipRect(0, 0, getWidth(), getHeight());
+
+        // 裁剪掉不模糊区域，无需离屏图层
+        if (!mViewExcludeMask.isEmpty()) {
+            canvas.clipOutPath(mViewExcludeMask.getPath(this));
         }
 
-        mBlurScript.setRadius(mBlurRadius);
-        mBlurScript.setInput(allocIn);
-        mBlurScript.forEach(allocOut);
+        // 开启双线性插值优化缩放效果
+        final DrawFilter drawFilter = canvas.getDrawFilter();
+        canvas.setDrawFilter(mDrawFilter);
 
-        final Bitmap oldBlurBitmap = mBlurBitmap;
-        mBlurBitmap = resetBitmap(mBlurBitmap, viewBitmap.getWidth(), viewBitmap.getHeight());
-        allocOut.copyTo(mBlurBitmap);
+        if (mActiveBlurEngine != null) {
+            mActiveBlurEngine.draw(canvas);
+        }
 
-        allocIn.destroy();
-        allocOut.destroy();
-        viewBitmap.recycle();
+        canvas.setDrawFilter(drawFilter);
+        canvas.restoreToCount(saveCount);
 
-        return mBlurBitmap != oldBlurBitmap;
+        Trace.endSection();
+        mBlurMetrics.mDrawTimeNanos = System.nanoTime() - startTimeNanos;
     }
 
     /**
-     * 模糊视图处理
+     * 更新模糊
      *
-     * @return 是否重绘视图
+     * @param force      是否强制模糊
+     * @param invalidate 是否重绘视图
      */
-    @RequiresApi(api = Build.VERSION_CODES.S)
-    private boolean blurApi31() {
-        if (mBlurRenderNode == null) {
-            mBlurRenderNode = new RenderNode(TAG);
-        } else {
-            if (mBlurRenderNode.hasDisplayList()) {
-                mBlurRenderNode.discardDisplayList();
+    private void update(boolean force, boolean invalidate) {
+        if (mBlurController == null || !isShown() || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+
+        if (isUpdateSuspended()) {
+            mIsSuspended = true;
+            mBlurMetrics.mSuspendedUpdateCount++;
+            return;
+        }
+
+        // 恢复时内容可能已变化，强制模糊一次
+        if (mIsSuspended) {
+            mIsSuspended = false;
+            force = true;
+        }
+
+        final BlurEngine blurEngine = requireBlurEngine();
+        final boolean engineChanged = blurEngine != mActiveBlurEngine;
+        if (engineChanged) {
+            if (mActiveBlurEngine != null) {
+                mActiveBlurEngine.setCallback(null);
+                mActiveBlurEngine.release();
             }
+            mActiveBlurEngine = blurEngine;
+            mActiveBlurEngine.setCallback(mBlurEngineCallback);
+            mBlurMetrics.mBlurEngineName = blurEngine.getClass().getSimpleName();
         }
 
-        mBlurRenderNode.setPosition(0, 0, getWidth(), getHeight());
+        final int inSampleSize = getEffectiveInSampleSize();
+        if (blurEngine.canBlurSource() && canBlurSource(mBlurController.getSourceView())
+                && updateSource(blurEngine, inSampleSize, force || engineChanged,
+                invalidate || engineChanged)) {
+            return;
+        }
+        mHasSourceBlur = false;
+
+        final long startTimeNanos = System.nanoTime();
+        Trace.beginSection(TRACE_CAPTURE);
+        final Bitmap viewBitmap = createViewBitmap(mBlurController, inSampleSize);
+        final long contentHash = mContentHash.compute(viewBitmap);
+        Trace.endSection();
+        final long captureEndTimeNanos = System.nanoTime();
+
+        mBlurMetrics.mUpdateCount++;
+        mBlurMetrics.mCaptureTimeNanos = captureEndTimeNanos - startTimeNanos;
+        mBlurMetrics.mInSampleSize = inSampleSize;
+
+        // 捕获内容未变化时跳过模糊及重绘
+        if (!force && !engineChanged && mHasBlurContentHash && contentHash == mBlurContentHash) {
+            mBlurMetrics.mBlurTimeNanos = 0;
+            mBlurMetrics.mSkippedUpdateCount++;
+            dispatchBlurMetrics();
+            BlurMemoryGovernor.getInstance().onUpdated();
+            return;
+        }
 
-        final Bitmap oldViewBitmap = mViewBitmap;
-        final Bitmap viewBitmap = createViewBitmap();
-        final RecordingCanvas canvas = mBlurRenderNode.beginRecording();
-        canvas.scale(mInSampleSize, mInSampleSize);
-        canvas.drawBitmap(viewBitmap, 0, 0, null);
-        mBlurRenderNode.endRecording();
+        // 位图模糊引擎复用内容哈希的行哈希及分块哈希
+        if (blurEngine instanceof BitmapBlurEngine) {
+            ((BitmapBlurEngine) blurEngine).setPixelHashes(viewBitmap,
+                    mContentHash.getPixelHashes());
+        }
 
-        final float blurRadius = mBlurRadius * mInSampleSize;
-        final RenderEffect blurEffect = RenderEffect.createBlurEffect(blurRadius, blurRadius,
-                Shader.TileMode.MIRROR);
-        mBlurRenderNode.setRenderEffect(blurEffect);
+        Trace.beginSection(TRACE_BLUR);
+        final boolean shouldInvalidate = blurEngine.blur(viewBitmap,
+                getEffectiveBlurRadius(inSampleSize), inSampleSize);
+        Trace.endSection();
+        final long endTimeNanos = System.nanoTime();
+        mBlurContentHash = contentHash;
+        mHasBlurContentHash = true;
+
+        mBlurMetrics.mBlurTimeNanos = endTimeNanos - captureEndTimeNanos;
+        if (mAdaptiveInSampleSize) {
+            mAdaptiveSampler.onUpdateCost(endTimeNanos - startTimeNanos);
+        }
+        dispatchBlurMetrics();
+        BlurMemoryGovernor.getInstance().onUpdated();
 
-        return viewBitmap != oldViewBitmap;
+        if (invalidate || engineChanged || shouldInvalidate) {
+            invalidate();
+        }
     }
 
     /**
-     * 创建视图覆盖区域的位图
+     * 直接模糊源视图，无需捕获及比较内容哈希。源视图自上次绘制后未变化且区域及参数不变时跳过重新录制，
+     * 已引用的子视图渲染节点随窗口绘制更新
      *
-     * @return 视图覆盖区域的位图
+     * @param blurEngine   模糊引擎
+     * @param inSampleSize 采样大小
+     * @param force        是否强制模糊
+     * @param invalidate   是否重绘视图
+     * @return 是否已模糊，未模糊时需捕获为位图后模糊
      */
-    @NonNull
-    private Bitmap createViewBitmap() {
-        final Rect viewRect = ViewUtils.getRectRelativeToTarget(this, mWindowDecorView);
-        final int bitmapWidth = (int) Math.ceil((float) viewRect.width() / mInSampleSize);
-        final int bitmapHeight = (int) Math.ceil((float) viewRect.height() / mInSampleSize);
-        final Canvas canvas = requireCanvas();
-
-        mViewBitmap = resetBitmap(mViewBitmap, Math.max(bitmapWidth, 1), Math.max(bitmapHeight, 1));
-        canvas.setBitmap(mViewBitmap);
+    private boolean updateSource(@NonNull final BlurEngine blurEngine, final int inSampleSize,
+                                 final boolean force, final boolean invalidate) {
+        final BlurController blurController = mBlurController;
+        final View sourceView = blurController.getSourceView();
+        final Rect rect = ViewUtils.getRectRelativeToTarget(this, sourceView, mViewRect);
+        final float blurRadius = getEffectiveBlurRadius(inSampleSize);
+        if (!force && mHasSourceBlur && !sourceView.isDirty() && rect.equals(mSourceBlurRect)
+                && blurRadius == mSourceBlurRadius && inSampleSize == mSourceInSampleSize) {
+            mBlurMetrics.mUpdateCount++;
+            mBlurMetrics.mSkippedUpdateCount++;
+            mBlurMetrics.mCaptureTimeNanos = 0;
+            mBlurMetrics.mBlurTimeNanos = 0;
+            dispatchBlurMetrics();
+            BlurMemoryGovernor.getInstance().onUpdated();
+            return true;
+        }
 
-        // 调整画布
-        canvas.scale(1 / (float) mInSampleSize, 1 / (float) mInSampleSize);
-        canvas.translate(-viewRect.left, -viewRect.top);
+        final long startTimeNanos = System.nanoTime();
+        Trace.beginSection(TRACE_BLUR);
+        final boolean blurred = blurController.blurSource(this, blurEngine, rect, blurRadius,
+                inSampleSize);
+        Trace.endSection();
+        final long endTimeNanos = System.nanoTime();
+        if (!blurred) {
+            return false;
+        }
+        mSourceBlurRect.set(rect);
+        mSourceBlurRadius = blurRadius;
+        mSourceInSampleSize = inSampleSize;
+        mHasSourceBlur = true;
 
-        // 绘制窗口视图
-        if (mWindowDecorView != null) {
-            mWindowDecorView.draw(canvas);
+        // 不再需要捕获位图
+        if (mViewBitmap != null) {
+            BitmapUtils.releaseBitmap(mViewBitmap);
+            mViewBitmap = null;
         }
+        mHasBlurContentHash = false;
+
+        mBlurMetrics.mUpdateCount++;
+        mBlurMetrics.mCaptureTimeNanos = 0;
+        mBlurMetrics.mBlurTimeNanos = endTimeNanos - startTimeNanos;
+        mBlurMetrics.mInSampleSize = inSampleSize;
+        if (mAdaptiveInSampleSize) {
+            mAdaptiveSampler.onUpdateCost(endTimeNanos - startTimeNanos);
+        }
+        dispatchBlurMetrics();
+        BlurMemoryGovernor.getInstance().onUpdated();
 
-        canvas.clipRect(viewRect);
-        canvas.setBitmap(null);
+        if (invalidate) {
+            invalidate();
+        }
+        return true;
+    }
 
-        return mViewBitmap;
+    /**
+     * 是否可直接模糊源视图：源视图与视图同一窗口，避免跨渲染器共享渲染节点；
+     * 快照模式需要冻结的内容，仍捕获为位图。源视图包含视图（如默认的窗口视图）时录制会遍历视图所在的整棵子树，
+     * 仍捕获为位图，以比较内容哈希跳过未变化的更新
+     *
+     * @param sourceView 源视图
+     * @return 是否可直接模糊
+     */
+    private boolean canBlurSource(@NonNull final View sourceView) {
+        return !mSnapshot && sourceView.isHardwareAccelerated()
+                && sourceView.getRootView() == getRootView() && !isDescendantOf(sourceView);
     }
 
     /**
-     * 应用不模糊视图区域到画布
+     * 视图是否为另一视图的子孙，或为该视图本身
      *
-     * @param canvas 画布
+     * @param ancestor 祖先视图
+     * @return 是否为子孙
      */
-    private void applyViewExcludes(@NonNull final Canvas canvas) {
-        if (mViewExcludes.isEmpty()) {
-            return;
+    private boolean isDescendantOf(@NonNull final View ancestor) {
+        if (ancestor == this) {
+            return true;
         }
 
-        final Paint paint = requirePaint();
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-        for (final View view : mViewExcludes) {
-            if (view != null) {
-                canvas.drawRect(ViewUtils.getRectRelativeToTarget(view, this), paint);
+        ViewParent parent = getParent();
+        while (parent instanceof View) {
+            if (parent == ancestor) {
+                return true;
             }
+            parent = parent.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * 更新模糊指标的内存及合并次数，写入跟踪计数器并回调监听
+     */
+    private void dispatchBlurMetrics() {
+        final BlurMetrics metrics = mBlurMetrics;
+        metrics.mCoalescedUpdateCount = mUpdateScheduler.getCoalescedCount();
+        metrics.mByteCount = getByteCount();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.setCounter(TRACE_BYTE_COUNT, metrics.mByteCount);
+            Trace.setCounter(TRACE_IN_SAMPLE_SIZE, metrics.mInSampleSize);
+        }
+
+        if (mBlurMetricsListener != null) {
+            mBlurMetricsListener.onBlurMetrics(this, metrics);
         }
     }
 
     /**
-     * 获取画布
+     * 获取模糊引擎
      *
-     * @return 画布
+     * @return 模糊引擎
      */
     @NonNull
-    private Canvas requireCanvas() {
-        if (mCanvas == null) {
-            mCanvas = new Canvas();
-        } else {
-            mCanvas.setMatrix(null);
-            mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+    private BlurEngine requireBlurEngine() {
+        if (mBlurEngine != null && mBlurEngine.isSupported(this)) {
+            return mBlurEngine;
+        }
+
+        if (mDefaultBlurEngine == null || !mDefaultBlurEngine.isSupported(this)) {
+            final BlurEngine.Factory factory = sDefaultBlurEngineFactory;
+            final BlurEngine blurEngine = createSupportedBlurEngine(factory);
+            mDefaultBlurEngine = mAsyncBlur && blurEngine.canBlurInBackground()
+                    ? new AsyncBlurEngine(blurEngine, createSupportedBlurEngine(factory))
+                    : blurEngine;
         }
 
-        return mCanvas;
+        return mDefaultBlurEngine;
     }
 
     /**
-     * 获取画笔
+     * 使用模糊引擎工厂创建支持当前视图的模糊引擎
      *
-     * @return 画笔
+     * @param factory 模糊引擎工厂
+     * @return 模糊引擎，工厂创建的引擎不支持当前视图时为{@link StackBlurEngine}
      */
     @NonNull
-    private Paint requirePaint() {
-        if (mPaint == null) {
-            mPaint = new Paint();
-        } else {
-            mPaint.reset();
-        }
+    private BlurEngine createSupportedBlurEngine(@NonNull final BlurEngine.Factory factory) {
+        final BlurEngine blurEngine = factory.create(this);
+        return blurEngine.isSupported(this) ? blurEngine : new StackBlurEngine();
+    }
 
-        mPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 创建模糊引擎
+     *
+     * @param blurEngine 模糊引擎类型
+     * @return 模糊引擎，为空时使用全局模糊引擎工厂创建
+     */
+    @Nullable
+    private BlurEngine createBlurEngine(final int blurEngine) {
+        final BlurEngine frontEngine = createBuiltinBlurEngine(blurEngine);
+        if (mAsyncBlur && frontEngine != null && frontEngine.canBlurInBackground()) {
+            return new AsyncBlurEngine(frontEngine,
+                    Objects.requireNonNull(createBuiltinBlurEngine(blurEngine)));
+        }
+        return frontEngine;
+    }
 
-        return mPaint;
+    /**
+     * 创建内置模糊引擎
+     *
+     * @param blurEngine 模糊引擎类型
+     * @return 模糊引擎，为空时使用全局模糊引擎工厂创建
+     */
+    @Nullable
+    private BlurEngine createBuiltinBlurEngine(final int blurEngine) {
+        switch (blurEngine) {
+            case BLUR_ENGINE_RENDER_EFFECT:
+                return Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                        ? new RenderEffectBlurEngine() : null;
+            case BLUR_ENGINE_RENDER_SCRIPT:
+                return new RenderScriptBlurEngine(getContext());
+            case BLUR_ENGINE_STACK_BLUR:
+                return new StackBlurEngine();
+            case BLUR_ENGINE_TILED_BLUR:
+                return new TiledBlurEngine();
+            default:
+                return null;
+        }
     }
 
     /**
-     * 重置位图
+     * 转换属性指定的位图格式
      *
-     * @param bitmap 位图
-     * @param width  宽度
-     * @param height 高度
-     * @return 重置的位图
+     * @param bitmapConfig 位图格式类型
+     * @return 位图格式
      */
     @NonNull
-    private Bitmap resetBitmap(@Nullable final Bitmap bitmap, @IntRange(from = 1) final int width,
-                               @IntRange(from = 1) final int height) {
-        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
-                || bitmap.getWidth() != width || bitmap.getHeight() != height) {
-            if (bitmap != null && !bitmap.isRecycled()) {
-                bitmap.recycle();
-            }
-            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    private static Bitmap.Config toBitmapConfig(final int bitmapConfig) {
+        switch (bitmapConfig) {
+            case BITMAP_CONFIG_RGB_565:
+                return Bitmap.Config.RGB_565;
+            case BITMAP_CONFIG_ALPHA_8:
+                return Bitmap.Config.ALPHA_8;
+            default:
+                return Bitmap.Config.ARGB_8888;
         }
+    }
 
-        bitmap.eraseColor(Color.TRANSPARENT);
-        bitmap.setWidth(width);
-        bitmap.setHeight(height);
+    /**
+     * 创建视图覆盖区域的位图
+     *
+     * @param blurController 模糊控制器
+     * @param inSampleSize   采样大小
+     * @return 视图覆盖区域的位图
+     */
+    @NonNull
+    private Bitmap createViewBitmap(@NonNull final BlurController blurController,
+                                    final int inSampleSize) {
+        final Rect viewRect = ViewUtils.getRectRelativeToTarget(this,
+                blurController.getSourceView(), mViewRect);
+        final int bitmapWidth = (int) Math.ceil((float) viewRect.width() / inSampleSize);
+        final int bitmapHeight = (int) Math.ceil((float) viewRect.height() / inSampleSize);
 
-        return bitmap;
+        mViewBitmap = BitmapUtils.resetBitmap(mViewBitmap, Math.max(bitmapWidth, 1),
+                Math.max(bitmapHeight, 1), mBitmapConfig);
+        blurController.capture(this, mViewBitmap, viewRect, inSampleSize);
+
+        return mViewBitmap;
     }
 }
@@ -0,0 +1,86 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.IntBuffer;
+
+/**
+ * 内容哈希
+ * <p>
+ * 通过{@link PixelHashes}计算采样位图像素的64位哈希，用于判断捕获的内容是否变化。
+ * 像素读取方式与{@link StackBlurEngine}相同，模糊同一位图时栈模糊引擎复用行哈希及分块哈希，
+ * 无需再次遍历像素。预热后不再分配内存
+ *
+ * @author obby-xiang
+ */
+final class ContentHash {
+    @NonNull
+    private final PixelHashes mPixelHashes = new PixelHashes();
+
+    @Nullable
+    private int[] mPixels;
+
+    @Nullable
+    private IntBuffer mPixelBuffer;
+
+    /**
+     * 计算位图哈希
+     *
+     * @param bitmap 位图
+     * @return 哈希
+     */
+    long compute(@NonNull final Bitmap bitmap) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        // 非ARGB_8888格式按颜色整数读取，行跨度为宽度
+        final boolean raw = bitmap.getConfig() == Bitmap.Config.ARGB_8888;
+        final int stride = raw ? bitmap.getRowBytes() >> 2 : width;
+        final int length = stride * height;
+        if (mPixels == null || mPixels.length < length) {
+            mPixels = new int[length];
+            mPixelBuffer = IntBuffer.wrap(mPixels);
+        }
+
+        if (raw) {
+            final IntBuffer pixelBuffer = mPixelBuffer;
+            pixelBuffer.rewind();
+            bitmap.copyPixelsToBuffer(pixelBuffer);
+        } else {
+            bitmap.getPixels(mPixels, 0, stride, 0, 0, width, height);
+        }
+
+        mPixelHashes.compute(mPixels, width, height, stride);
+        return mPixelHashes.getHash();
+    }
+
+    /**
+     * 获取最近一次计算的像素哈希
+     *
+     * @return 像素哈希
+     */
+    @NonNull
+    PixelHashes getPixelHashes() {
+        return mPixelHashes;
+    }
+
+    /**
+     * 获取持有的像素及哈希缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    long getByteCount() {
+        return StackBlur.sizeOf(mPixels) + mPixelHashes.getByteCount();
+    }
+
+    /**
+     * 释放缓存
+     */
+    void release() {
+        mPixels = null;
+        mPixelBuffer = null;
+        mPixelHashes.release();
+    }
+}
@@ -0,0 +1,204 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.HardwareRenderer;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RenderNode;
+import android.hardware.HardwareBuffer;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 硬件捕获
+ * <p>
+ * 将源视图绘制命令记录到{@link Picture}（仅记录，不在CPU光栅化），再由{@link HardwareRenderer}
+ * 在GPU光栅化到{@link ImageReader}，读回后写入捕获位图。记录时源视图按软件画布遍历，
+ * 模糊视图可在捕获期间跳过绘制，且不与窗口共享{@link RenderNode}，不影响窗口的同步及重绘区域。
+ * 每次捕获仍以软件画布遍历源视图，并在主线程等待光栅化完成后读回及复制，读取器每个图像分配平面及缓冲对象，
+ * 仅在源视图光栅化开销（如大量路径、阴影或大图缩放）明显高于遍历时更快。读取器、渲染器及中转位图跨帧复用
+ *
+ * @author obby-xiang
+ */
+@RequiresApi(api = Build.VERSION_CODES.Q)
+final class HardwareCapture {
+    private static final int MAX_IMAGES = 2;
+
+    private static final int SYNC_FAILED = HardwareRenderer.SYNC_LOST_SURFACE_REWARD_IF_FOUND
+            | HardwareRenderer.SYNC_CONTEXT_IS_STOPPED | HardwareRenderer.SYNC_FRAME_DROPPED;
+
+    @NonNull
+    private final Picture mPicture = new Picture();
+
+    @NonNull
+    private final RenderNode mRenderNode = new RenderNode("BlurViewCapture");
+
+    @NonNull
+    private final Canvas mCanvas = new Canvas();
+
+    @NonNull
+    private final Rect mSrcRect = new Rect();
+
+    @Nullable
+    private HardwareRenderer mRenderer;
+
+    @Nullable
+    private ImageReader mImageReader;
+
+    /**
+     * 中转位图，宽度为读取器行跨度对应的像素数
+     */
+    @Nullable
+    private Bitmap mStagingBitmap;
+
+    /**
+     * 捕获源视图区域到位图
+     *
+     * @param sourceView   源视图
+     * @param bitmap       位图
+     * @param rect         相对源视图的区域
+     * @param clipPath     相对源视图的裁剪路径，为空时只裁剪到区域
+     * @param inSampleSize 采样大小
+     * @return 是否捕获成功，失败时位图内容未定义
+     */
+    boolean capture(@NonNull final View sourceView, @NonNull final Bitmap bitmap,
+                    @NonNull final Rect rect, @Nullable final Path clipPath,
+                    final int inSampleSize) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+
+        // 记录源视图绘制命令
+        final Canvas pictureCanvas = mPicture.beginRecording(width, height);
+        pictureCanvas.scale(1 / (float) inSampleSize, 1 / (float) inSampleSize);
+        pictureCanvas.translate(-rect.left, -rect.top);
+        pictureCanvas.clipRect(rect);
+        if (clipPath != null) {
+            pictureCanvas.clipPath(clipPath);
+        }
+        sourceView.draw(pictureCanvas);
+        mPicture.endRecording();
+
+        final HardwareRenderer renderer = requireRenderer(width, height);
+        final RecordingCanvas recordingCanvas = mRenderNode.beginRecording();
+        recordingCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        recordingCanvas.drawPicture(mPicture);
+        mRenderNode.endRecording();
+
+        // 等待光栅化完成，读回的图像即本次捕获的内容
+        final int result = renderer.createRenderRequest().setWaitForPresent(true).syncAndDraw();
+        if ((result & SYNC_FAILED) != 0) {
+            return false;
+        }
+
+        final Image image = mImageReader.acquireLatestImage();
+        if (image == null || !readImage(image, height)) {
+            return false;
+        }
+
+        // 中转位图含行对齐的多余像素，只复制捕获区域，同时转换为位图格式
+        mSrcRect.set(0, 0, width, height);
+        mCanvas.setBitmap(bitmap);
+        mCanvas.drawBitmap(mStagingBitmap, mSrcRect, mSrcRect, null);
+        mCanvas.setBitmap(null);
+
+        return true;
+    }
+
+    /**
+     * 释放渲染器、读取器及中转位图
+     */
+    void release() {
+        if (mRenderer != null) {
+            mRenderer.destroy();
+            mRenderer = null;
+        }
+
+        if (mImageReader != null) {
+            mImageReader.close();
+            mImageReader = null;
+        }
+
+        mRenderNode.discardDisplayList();
+
+        if (mStagingBitmap != null) {
+            BitmapUtils.releaseBitmap(mStagingBitmap);
+            mStagingBitmap = null;
+        }
+    }
+
+    /**
+     * 读回图像到中转位图并关闭图像
+     *
+     * @param image  图像
+     * @param height 捕获高度
+     * @return 是否读回成功
+     */
+    private boolean readImage(@NonNull final Image image, final int height) {
+        try {
+            // 每个图像只获取一次平面，平面及缓冲由读取器按图像创建
+            final Image.Plane plane = image.getPlanes()[0];
+            if (plane.getPixelStride() != 4) {
+                return false;
+            }
+
+            final int stagingWidth = plane.getRowStride() / 4;
+            if (mStagingBitmap == null || mStagingBitmap.getWidth() != stagingWidth
+                    || mStagingBitmap.getHeight() != height) {
+                mStagingBitmap = BitmapUtils.resetBitmap(mStagingBitmap, stagingWidth, height);
+            }
+            final ByteBuffer buffer = plane.getBuffer();
+            buffer.rewind();
+            mStagingBitmap.copyPixelsFromBuffer(buffer);
+            return true;
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * 获取渲染器，读取器不足以容纳捕获尺寸时扩大重建
+     *
+     * @param width  捕获宽度
+     * @param height 捕获高度
+     * @return 渲染器
+     */
+    @NonNull
+    private HardwareRenderer requireRenderer(final int width, final int height) {
+        // 多留一行，使缓冲区不因最后一行不含行对齐而小于中转位图
+        if (mRenderer != null && mImageReader != null && mImageReader.getWidth() >= width
+                && mImageReader.getHeight() > height) {
+            return mRenderer;
+        }
+
+        final int readerWidth = Math.max(width,
+                mImageReader == null ? 0 : mImageReader.getWidth());
+        final int readerHeight = Math.max(height + 1,
+                mImageReader == null ? 0 : mImageReader.getHeight());
+        release();
+
+        mImageReader = ImageReader.newInstance(readerWidth, readerHeight, PixelFormat.RGBA_8888,
+                MAX_IMAGES, HardwareBuffer.USAGE_CPU_READ_OFTEN
+                        | HardwareBuffer.USAGE_GPU_COLOR_OUTPUT);
+        mRenderNode.setPosition(0, 0, readerWidth, readerHeight);
+        mRenderer = new HardwareRenderer();
+        // 渲染器默认不透明，半透明内容会与黑色混合，与软件绘制的透明背景不一致
+        mRenderer.setOpaque(false);
+        mRenderer.setContentRoot(mRenderNode);
+        mRenderer.setSurface(mImageReader.getSurface());
+        return mRenderer;
+    }
+}
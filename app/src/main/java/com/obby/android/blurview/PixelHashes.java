@@ -0,0 +1,192 @@
+package com.obby.android.blurview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 像素哈希
+ * <p>
+ * 一次遍历像素，按{@link #TILE_SIZE}列宽将每行分段计算FNV-1a哈希，由分段哈希同时得到行哈希及分块哈希，
+ * 整体哈希由行哈希得到。内容是否变化、滚动检测及分块差异共用一次遍历，预热后不再分配内存
+ *
+ * @author obby-xiang
+ */
+final class PixelHashes {
+    /**
+     * 分块大小
+     */
+    static final int TILE_SIZE = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Nullable
+    private long[] mRowHashes;
+
+    @Nullable
+    private long[] mTileHashes;
+
+    private int mWidth;
+
+    private int mHeight;
+
+    private int mColumns;
+
+    private int mRows;
+
+    /**
+     * 计算像素哈希
+     *
+     * @param pixels 像素
+     * @param width  宽度
+     * @param height 高度
+     * @param stride 行跨度
+     */
+    void compute(@NonNull final int[] pixels, final int width, final int height,
+                 final int stride) {
+        final int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        final int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        final int tileCount = columns * rows;
+        if (mRowHashes == null || mRowHashes.length < height) {
+            mRowHashes = new long[height];
+        }
+        if (mTileHashes == null || mTileHashes.length < tileCount) {
+            mTileHashes = new long[tileCount];
+        }
+
+        final long[] rowHashes = mRowHashes;
+        final long[] tileHashes = mTileHashes;
+        for (int i = 0; i < tileCount; i++) {
+            tileHashes[i] = 0;
+        }
+
+        for (int y = 0; y < height; y++) {
+            final int rowOffset = y * stride;
+            final int tileOffset = y / TILE_SIZE * columns;
+            long rowHash = FNV_OFFSET_BASIS;
+            for (int tx = 0; tx < columns; tx++) {
+                final int left = tx * TILE_SIZE;
+                final long hash = compute(pixels, rowOffset + left,
+                        Math.min(TILE_SIZE, width - left));
+                rowHash = (rowHash ^ hash) * FNV_PRIME;
+                tileHashes[tileOffset + tx] = (tileHashes[tileOffset + tx] ^ hash) * FNV_PRIME;
+            }
+            rowHashes[y] = rowHash;
+        }
+
+        mWidth = width;
+        mHeight = height;
+        mColumns = columns;
+        mRows = rows;
+    }
+
+    /**
+     * 获取整体哈希，由行哈希及尺寸得到
+     *
+     * @return 哈希
+     */
+    long getHash() {
+        final long[] rowHashes = mRowHashes;
+        long hash = FNV_OFFSET_BASIS;
+        for (int y = 0; y < mHeight; y++) {
+            hash = (hash ^ rowHashes[y]) * FNV_PRIME;
+        }
+        hash = (hash ^ mWidth) * FNV_PRIME;
+        hash = (hash ^ mHeight) * FNV_PRIME;
+        return hash;
+    }
+
+    /**
+     * 获取行哈希，长度可能大于高度，计算后有效
+     *
+     * @return 行哈希
+     */
+    @NonNull
+    long[] getRowHashes() {
+        return mRowHashes;
+    }
+
+    /**
+     * 获取按行排列的分块哈希，长度可能大于分块数，计算后有效
+     *
+     * @return 分块哈希
+     */
+    @NonNull
+    long[] getTileHashes() {
+        return mTileHashes;
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * 获取分块列数
+     *
+     * @return 列数
+     */
+    int getColumns() {
+        return mColumns;
+    }
+
+    /**
+     * 获取分块行数
+     *
+     * @return 行数
+     */
+    int getRows() {
+        return mRows;
+    }
+
+    /**
+     * 获取持有的哈希缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    long getByteCount() {
+        return sizeOf(mRowHashes) + sizeOf(mTileHashes);
+    }
+
+    /**
+     * 释放缓存
+     */
+    void release() {
+        mRowHashes = null;
+        mTileHashes = null;
+        mWidth = 0;
+        mHeight = 0;
+        mColumns = 0;
+        mRows = 0;
+    }
+
+    /**
+     * 计算像素哈希
+     *
+     * @param pixels 像素
+     * @param offset 起始偏移
+     * @param length 像素数
+     * @return 哈希
+     */
+    static long compute(@NonNull final int[] pixels, final int offset, final int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = (hash ^ pixels[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 获取哈希数组占用的内存
+     *
+     * @param hashes 哈希数组
+     * @return 内存大小，单位为字节，数组为空时为0
+     */
+    private static long sizeOf(@Nullable final long[] hashes) {
+        return hashes == null ? 0 : (long) hashes.length * Long.BYTES;
+    }
+}
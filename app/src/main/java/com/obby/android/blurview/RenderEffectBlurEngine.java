@@ -0,0 +1,165 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.Rect;
+import android.graphics.RenderEffect;
+import android.graphics.RenderNode;
+import android.graphics.Shader;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+/**
+ * RenderEffect模糊引擎
+ * <p>
+ * 将采样位图记录到{@link RenderNode}，由{@link RenderEffect}在GPU模糊，仅支持硬件加速视图。
+ * 直接模糊不包含视图的源视图时按采样大小缩小录制源视图的绘制命令，子视图引用各自的渲染节点，
+ * 无需捕获为位图，绘制时再放大。模糊效果跨帧复用，仅在模糊半径或采样大小变化时重建
+ *
+ * @author obby-xiang
+ */
+@RequiresApi(api = Build.VERSION_CODES.S)
+public class RenderEffectBlurEngine implements BlurEngine {
+    private static final String TAG = "RenderEffectBlurEngine";
+
+    @Nullable
+    private RenderNode mBlurRenderNode;
+
+    @Nullable
+    private Bitmap mBitmap;
+
+    /**
+     * 模糊效果，半径不变时复用
+     */
+    @Nullable
+    private RenderEffect mBlurEffect;
+
+    private float mBlurEffectRadius;
+
+    /**
+     * 绘制时的缩放倍数，直接模糊源视图时为采样大小
+     */
+    private int mDrawScale = 1;
+
+    @Nullable
+    private Callback mCallback;
+
+    @Override
+    public boolean isSupported(@NonNull View view) {
+        return view.isHardwareAccelerated();
+    }
+
+    @Override
+    public boolean canBlurInBackground() {
+        return false;
+    }
+
+    @Override
+    public boolean canBlurSource() {
+        return true;
+    }
+
+    @Override
+    public void setCallback(@Nullable Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public boolean blur(@NonNull Bitmap bitmap, float blurRadius, int inSampleSize) {
+        final RenderNode blurRenderNode = requireBlurRenderNode();
+        blurRenderNode.setPosition(0, 0, bitmap.getWidth() * inSampleSize,
+                bitmap.getHeight() * inSampleSize);
+
+        final RecordingCanvas canvas = blurRenderNode.beginRecording();
+        canvas.scale(inSampleSize, inSampleSize);
+        canvas.drawBitmap(bitmap, 0, 0, null);
+        blurRenderNode.endRecording();
+
+        updateBlurEffect(blurRadius * inSampleSize);
+        mDrawScale = 1;
+
+        final Bitmap oldBitmap = mBitmap;
+        mBitmap = bitmap;
+
+        return bitmap != oldBitmap;
+    }
+
+    @Override
+    public boolean blurSource(@NonNull View view, @NonNull View sourceView, @NonNull Rect rect,
+                              float blurRadius, int inSampleSize) {
+        final RenderNode blurRenderNode = requireBlurRenderNode();
+        blurRenderNode.setPosition(0, 0, (int) Math.ceil((float) rect.width() / inSampleSize),
+                (int) Math.ceil((float) rect.height() / inSampleSize));
+
+        // 子视图录制为对各自渲染节点的引用，子视图更新时模糊结果随之重绘
+        final RecordingCanvas canvas = blurRenderNode.beginRecording();
+        canvas.scale(1 / (float) inSampleSize, 1 / (float) inSampleSize);
+        canvas.translate(-rect.left, -rect.top);
+        canvas.clipRect(rect);
+        sourceView.draw(canvas);
+        blurRenderNode.endRecording();
+
+        updateBlurEffect(blurRadius);
+        final boolean scaleChanged = inSampleSize != mDrawScale;
+        mDrawScale = inSampleSize;
+        mBitmap = null;
+
+        if (scaleChanged && mCallback != null) {
+            mCallback.invalidateBlurEngine(this);
+        }
+        return true;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (mBlurRenderNode != null && canvas.isHardwareAccelerated()) {
+            final int saveCount = canvas.save();
+            canvas.scale(mDrawScale, mDrawScale);
+            canvas.drawRenderNode(mBlurRenderNode);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    @Override
+    public void release() {
+        if (mBlurRenderNode != null) {
+            mBlurRenderNode.discardDisplayList();
+            mBlurRenderNode = null;
+        }
+
+        mBitmap = null;
+        mBlurEffect = null;
+        mDrawScale = 1;
+    }
+
+    /**
+     * 获取模糊渲染节点
+     *
+     * @return 模糊渲染节点
+     */
+    @NonNull
+    private RenderNode requireBlurRenderNode() {
+        if (mBlurRenderNode == null) {
+            mBlurRenderNode = new RenderNode(TAG);
+        }
+        return mBlurRenderNode;
+    }
+
+    /**
+     * 更新模糊效果，渲染节点的属性跨录制保留，半径变化时才重建
+     *
+     * @param radius 渲染节点坐标系下的模糊半径
+     */
+    private void updateBlurEffect(final float radius) {
+        if (mBlurEffect == null || radius != mBlurEffectRadius) {
+            mBlurEffect = RenderEffect.createBlurEffect(radius, radius, Shader.TileMode.MIRROR);
+            mBlurEffectRadius = radius;
+            mBlurRenderNode.setRenderEffect(mBlurEffect);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.obby.android.blurview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.renderscript.Allocation;
+import android.renderscript.Element;
+import android.renderscript.RenderScript;
+import android.renderscript.ScriptIntrinsicBlur;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * RenderScript模糊引擎
+ * <p>
+ * 基于{@link ScriptIntrinsicBlur}模糊，单次模糊半径最大为{@link #MAX_BLUR_RADIUS}，更大的半径逐级下采样后模糊。
+ * 输入、输出分配跨帧复用，仅在位图变化时重建，输出分配与模糊位图共享内存，无需额外复制。
+ * 支持{@link Bitmap.Config#ARGB_8888}及{@link Bitmap.Config#ALPHA_8}
+ *
+ * @author obby-xiang
+ */
+@SuppressWarnings("deprecation")
+public class RenderScriptBlurEngine extends BitmapBlurEngine {
+    /**
+     * 单次模糊的最大模糊半径
+     */
+    public static final float MAX_BLUR_RADIUS = 25f;
+
+    @NonNull
+    private final Context mContext;
+
+    @Nullable
+    private RenderScript mRenderScript;
+
+    @Nullable
+    private ScriptIntrinsicBlur mBlurScript;
+
+    /**
+     * 模糊脚本对应的位图格式
+     */
+    @Nullable
+    private Bitmap.Config mBlurScriptConfig;
+
+    @Nullable
+    private Bitmap mBlurBitmap;
+
+    /**
+     * 输入分配绑定的位图
+     */
+    @Nullable
+    private Bitmap mInputBitmap;
+
+    @Nullable
+    private Allocation mAllocIn;
+
+    @Nullable
+    private Allocation mAllocOut;
+
+    /**
+     * 构造RenderScript模糊引擎
+     *
+     * @param context 上下文
+     */
+    public RenderScriptBlurEngine(@NonNull Context context) {
+        super(MAX_BLUR_RADIUS);
+        mContext = context.getApplicationContext();
+    }
+
+    @NonNull
+    @Override
+    protected Bitmap onBlur(@NonNull Bitmap bitmap, float blurRadius) {
+        if (mRenderScript == null) {
+            mRenderScript = RenderScript.create(mContext);
+        }
+
+        // 格式变化时重建模糊脚本及分配
+        final Bitmap.Config config = bitmap.getConfig();
+        if (mBlurScript == null || config != mBlurScriptConfig) {
+            if (mBlurScript != null) {
+                mBlurScript.destroy();
+            }
+            mBlurScript = ScriptIntrinsicBlur.create(mRenderScript,
+                    config == Bitmap.Config.ALPHA_8 ? Element.U8(mRenderScript)
+                            : Element.U8_4(mRenderScript));
+            mBlurScriptConfig = config;
+            destroyAllocations();
+        }
+
+        // 输入位图或其尺寸变化时重建输入分配，否则同步位图内容
+        if (mAllocIn == null || bitmap != mInputBitmap
+                || mAllocIn.getType().getX() != bitmap.getWidth()
+                || mAllocIn.getType().getY() != bitmap.getHeight()) {
+            if (mAllocIn != null) {
+                mAllocIn.destroy();
+            }
+            mAllocIn = createSharedAllocation(mRenderScript, bitmap);
+            mInputBitmap = bitmap;
+        } else {
+            mAllocIn.syncAll(Allocation.USAGE_SHARED);
+        }
+
+        // 尺寸变化时重建模糊位图及输出分配
+        if (mAllocOut == null || mBlurBitmap == null
+                || mBlurBitmap.getWidth() != bitmap.getWidth()
+                || mBlurBitmap.getHeight() != bitmap.getHeight()) {
+            if (mAllocOut != null) {
+                mAllocOut.destroy();
+            }
+            mBlurBitmap = BitmapUtils.resetBitmap(mBlurBitmap, bitmap.getWidth(),
+                    bitmap.getHeight(), config);
+            mAllocOut = createSharedAllocation(mRenderScript, mBlurBitmap);
+        }
+
+        mBlurScript.setRadius(Math.min(blurRadius, MAX_BLUR_RADIUS));
+        mBlurScript.setInput(mAllocIn);
+        mBlurScript.forEach(mAllocOut);
+        mAllocOut.syncAll(Allocation.USAGE_SCRIPT);
+
+        return mBlurBitmap;
+    }
+
+    @Override
+    protected boolean isConfigSupported(@NonNull Bitmap.Config config) {
+        return config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.ALPHA_8;
+    }
+
+    @Override
+    protected void onRelease() {
+        destroyAllocations();
+
+        if (mBlurBitmap != null) {
+            BitmapUtils.releaseBitmap(mBlurBitmap);
+            mBlurBitmap = null;
+        }
+
+        if (mBlurScript != null) {
+            mBlurScript.destroy();
+            mBlurScript = null;
+        }
+        mBlurScriptConfig = null;
+
+        if (mRenderScript != null) {
+            mRenderScript.destroy();
+            mRenderScript = null;
+        }
+    }
+
+    /**
+     * 销毁输入、输出分配
+     */
+    private void destroyAllocations() {
+        if (mAllocIn != null) {
+            mAllocIn.destroy();
+            mAllocIn = null;
+        }
+
+        if (mAllocOut != null) {
+            mAllocOut.destroy();
+            mAllocOut = null;
+        }
+
+        mInputBitmap = null;
+    }
+
+    /**
+     * 创建与位图共享内存的分配
+     *
+     * @param renderScript RenderScript
+     * @param bitmap       位图
+     * @return 分配
+     */
+    @NonNull
+    private static Allocation createSharedAllocation(@NonNull final RenderScript renderScript,
+                                                     @NonNull final Bitmap bitmap) {
+        return Allocation.createFromBitmap(renderScript, bitmap,
+                Allocation.MipmapControl.MIPMAP_NONE,
+                Allocation.USAGE_SCRIPT | Allocation.USAGE_SHARED);
+    }
+}
@@ -0,0 +1,144 @@
+package com.obby.android.blurview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 滚动检测
+ * <p>
+ * 将{@link PixelHashes}的行哈希与上一帧的行哈希比较，判断内容是否为上一帧的纯垂直平移，自身不遍历像素。
+ * 只要重叠部分的行全部相同即视为平移，与内容实际如何移动无关。内容变化而未平移时，
+ * 大面积相同的行（如纯色背景）会使每个候选距离都比较到变化处才失败，因此先比较上一个候选不同的行，
+ * 并限制每帧比较的总行数，超出时视为未检测到平移。预热后不再分配内存
+ *
+ * @author obby-xiang
+ */
+final class ScrollDetector {
+    /**
+     * 未检测到平移
+     */
+    static final int NO_SCROLL = Integer.MIN_VALUE;
+
+    /**
+     * 每帧比较行哈希的总次数上限相对行数的倍数
+     */
+    private static final int MAX_COMPARE_FACTOR = 4;
+
+    @Nullable
+    private long[] mPrevRowHashes;
+
+    private int mWidth;
+
+    private int mHeight;
+
+    private boolean mHasPrev;
+
+    /**
+     * 本帧剩余可比较的行数
+     */
+    private int mCompareBudget;
+
+    /**
+     * 上一个候选距离首个不同的当前行，内容变化处在各候选距离下通常都不同，未记录时为-1
+     */
+    private int mMismatchRow;
+
+    /**
+     * 检测平移
+     *
+     * @param pixelHashes 当前帧的像素哈希
+     * @param maxDist     最大平移距离
+     * @return 平移行数，内容上移为正，如当前第0行为上一帧第dy行；未检测到平移时为{@link #NO_SCROLL}
+     */
+    int detect(@NonNull final PixelHashes pixelHashes, final int maxDist) {
+        final int width = pixelHashes.getWidth();
+        final int height = pixelHashes.getHeight();
+        if (mPrevRowHashes == null || mPrevRowHashes.length < height) {
+            mPrevRowHashes = new long[height];
+            mHasPrev = false;
+        }
+
+        final long[] rowHashes = pixelHashes.getRowHashes();
+        final int dy = mHasPrev && width == mWidth && height == mHeight
+                ? findScroll(rowHashes, mPrevRowHashes, height, Math.min(maxDist, height - 1))
+                : NO_SCROLL;
+
+        // 当前行哈希作为下一帧的上一帧
+        System.arraycopy(rowHashes, 0, mPrevRowHashes, 0, height);
+        mWidth = width;
+        mHeight = height;
+        mHasPrev = true;
+
+        return dy;
+    }
+
+    /**
+     * 清除上一帧，下一帧不检测平移
+     */
+    void reset() {
+        mHasPrev = false;
+    }
+
+    /**
+     * 释放缓存
+     */
+    void release() {
+        mPrevRowHashes = null;
+        mHasPrev = false;
+    }
+
+    /**
+     * 按距离从小到大查找使重叠行全部相同的平移，比较的总行数超出上限时停止
+     *
+     * @param rows     当前行哈希
+     * @param prevRows 上一帧行哈希
+     * @param height   行数
+     * @param maxDist  最大平移距离
+     * @return 平移行数，未找到时为{@link #NO_SCROLL}
+     */
+    private int findScroll(@NonNull final long[] rows, @NonNull final long[] prevRows,
+                           final int height, final int maxDist) {
+        mCompareBudget = MAX_COMPARE_FACTOR * height;
+        mMismatchRow = -1;
+        for (int dist = 0; dist <= maxDist && mCompareBudget > 0; dist++) {
+            if (matches(rows, prevRows, height, dist)) {
+                return dist;
+            }
+            if (dist > 0 && matches(rows, prevRows, height, -dist)) {
+                return -dist;
+            }
+        }
+        return NO_SCROLL;
+    }
+
+    /**
+     * 当前第y行是否与上一帧第y+dy行全部相同，先比较上一个候选距离不同的行
+     *
+     * @param rows     当前行哈希
+     * @param prevRows 上一帧行哈希
+     * @param height   行数
+     * @param dy       平移行数
+     * @return 是否相同
+     */
+    private boolean matches(@NonNull final long[] rows, @NonNull final long[] prevRows,
+                            final int height, final int dy) {
+        final int start = Math.max(0, -dy);
+        final int end = Math.min(height, height - dy);
+        final int mismatchRow = mMismatchRow;
+        if (mismatchRow >= start && mismatchRow < end
+                && rows[mismatchRow] != prevRows[mismatchRow + dy]) {
+            mCompareBudget--;
+            return false;
+        }
+
+        for (int y = start; y < end; y++) {
+            if (rows[y] != prevRows[y + dy]) {
+                mCompareBudget -= y - start + 1;
+                mMismatchRow = y;
+                return false;
+            }
+        }
+        mCompareBudget -= end - start;
+        return true;
+    }
+}
@@ -0,0 +1,460 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 栈模糊
+ * <p>
+ * 纯Java实现的可分离模糊，水平、垂直两趟分别按行、列切分到ForkJoin公共线程池并行处理，
+ * 直接处理位图的原始像素（预乘透明度），预热后每帧不再分配内存
+ *
+ * @author obby-xiang
+ */
+public final class StackBlur {
+    /**
+     * 最大模糊半径
+     */
+    public static final int MAX_RADIUS = 254;
+
+    /**
+     * 并行处理的最小像素数，小于该值时在调用线程直接处理
+     */
+    private static final int MIN_PARALLEL_PIXELS = 1 << 14;
+
+    /**
+     * 并行任务
+     */
+    @NonNull
+    private final BlurTask[] mTasks;
+
+    /**
+     * 像素
+     */
+    @Nullable
+    private int[] mPixels;
+
+    /**
+     * 水平模糊结果
+     */
+    @Nullable
+    private int[] mBuffer;
+
+    /**
+     * 像素缓冲
+     */
+    @Nullable
+    private IntBuffer mPixelBuffer;
+
+    /**
+     * 构造栈模糊，并行数为处理器核心数
+     */
+    public StackBlur() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造栈模糊
+     *
+     * @param parallelism 并行数
+     */
+    public StackBlur(@IntRange(from = 1) int parallelism) {
+        mTasks = new BlurTask[Math.max(parallelism, 1)];
+        for (int i = 0; i < mTasks.length; i++) {
+            mTasks[i] = new BlurTask();
+        }
+    }
+
+    /**
+     * 模糊位图，输入、输出位图须为相同尺寸的{@link Bitmap.Config#ARGB_8888}位图
+     *
+     * @param input  输入位图
+     * @param output 输出位图，可与输入位图相同
+     * @param radius 模糊半径
+     */
+    public void blur(@NonNull final Bitmap input, @NonNull final Bitmap output,
+                     @IntRange(from = 1, to = MAX_RADIUS) final int radius) {
+        final int stride = input.getRowBytes() >> 2;
+        final int height = input.getHeight();
+        final int length = stride * height;
+
+        if (mPixels == null || mPixels.length < length) {
+            mPixels = new int[length];
+            mPixelBuffer = IntBuffer.wrap(mPixels);
+        }
+
+        final IntBuffer pixelBuffer = mPixelBuffer;
+        pixelBuffer.rewind();
+        input.copyPixelsToBuffer(pixelBuffer);
+
+        blur(mPixels, input.getWidth(), height, stride, radius);
+
+        pixelBuffer.rewind();
+        output.copyPixelsFromBuffer(pixelBuffer);
+    }
+
+    /**
+     * 模糊像素，每个像素的4个8位通道分别处理，与通道顺序无关
+     *
+     * @param pixels 像素
+     * @param width  宽度
+     * @param height 高度
+     * @param stride 行跨度
+     * @param radius 模糊半径
+     */
+    public void blur(@NonNull final int[] pixels, @IntRange(from = 1) final int width,
+                     @IntRange(from = 1) final int height, @IntRange(from = 1) final int stride,
+                     @IntRange(from = 1, to = MAX_RADIUS) final int radius) {
+        blurRows(pixels, pixels, width, height, stride, radius, 0, height);
+    }
+
+    /**
+     * 模糊像素的若干行，只计算输出的指定行，结果与整体模糊后取这些行相同
+     *
+     * @param input    输入像素
+     * @param output   输出像素，可与输入像素相同
+     * @param width    宽度
+     * @param height   高度
+     * @param stride   行跨度
+     * @param radius   模糊半径
+     * @param startRow 起始行
+     * @param endRow   结束行（不包含）
+     */
+    public void blurRows(@NonNull final int[] input, @NonNull final int[] output,
+                         @IntRange(from = 1) final int width, @IntRange(from = 1) final int height,
+                         @IntRange(from = 1) final int stride,
+                         @IntRange(from = 1, to = MAX_RADIUS) final int radius,
+                         @IntRange(from = 0) final int startRow,
+                         @IntRange(from = 0) final int endRow) {
+        blurRect(input, output, width, height, stride, radius, 0, startRow, width, endRow);
+    }
+
+    /**
+     * 模糊像素的矩形区域，只计算输出的指定区域，结果与整体模糊后取该区域相同
+     *
+     * @param input  输入像素
+     * @param output 输出像素，可与输入像素相同
+     * @param width  宽度
+     * @param height 高度
+     * @param stride 行跨度
+     * @param radius 模糊半径
+     * @param left   左边界
+     * @param top    上边界
+     * @param right  右边界（不包含）
+     * @param bottom 下边界（不包含）
+     */
+    public void blurRect(@NonNull final int[] input, @NonNull final int[] output,
+                         @IntRange(from = 1) final int width, @IntRange(from = 1) final int height,
+                         @IntRange(from = 1) final int stride,
+                         @IntRange(from = 1, to = MAX_RADIUS) final int radius,
+                         @IntRange(from = 0) final int left, @IntRange(from = 0) final int top,
+                         @IntRange(from = 0) final int right,
+                         @IntRange(from = 0) final int bottom) {
+        if (left >= right || top >= bottom) {
+            return;
+        }
+
+        final int length = stride * height;
+        if (mBuffer == null || mBuffer.length < length) {
+            mBuffer = new int[length];
+        }
+
+        final int r = Math.min(Math.max(radius, 1), MAX_RADIUS);
+
+        // 垂直模糊读取输出行上下半径范围内的水平模糊结果
+        final int startBufferRow = Math.max(top - r, 0);
+        final int endBufferRow = Math.min(bottom + r + 1, height);
+        final int bufferRows = endBufferRow - startBufferRow;
+        final int columns = right - left;
+        int taskCount = columns * bufferRows < MIN_PARALLEL_PIXELS ? 1 : mTasks.length;
+
+        // 水平模糊，按行切分
+        for (int i = 0; i < taskCount; i++) {
+            mTasks[i].setup(input, mBuffer, width, height, stride, r, true,
+                    startBufferRow + bufferRows * i / taskCount,
+                    startBufferRow + bufferRows * (i + 1) / taskCount, left, right);
+        }
+        invoke(taskCount);
+
+        // 垂直模糊，按列切分
+        taskCount = columns * (bottom - top) < MIN_PARALLEL_PIXELS ? 1 : mTasks.length;
+        for (int i = 0; i < taskCount; i++) {
+            mTasks[i].setup(mBuffer, output, width, height, stride, r, false,
+                    left + columns * i / taskCount, left + columns * (i + 1) / taskCount, top,
+                    bottom);
+        }
+        invoke(taskCount);
+    }
+
+    /**
+     * 模糊垂直平移后的像素，复用上一帧的模糊结果：平移上一帧结果中仍然有效的行，
+     * 只重新模糊新露出的行及边缘半径范围内的行
+     *
+     * @param input  输入像素，第y行为上一帧输入的第y+dy行
+     * @param output 输出像素，输入为上一帧以相同半径模糊的结果，不能与输入像素相同
+     * @param width  宽度
+     * @param height 高度
+     * @param stride 行跨度
+     * @param radius 模糊半径
+     * @param dy     平移行数
+     */
+    public void blurScrolled(@NonNull final int[] input, @NonNull final int[] output,
+                             @IntRange(from = 1) final int width,
+                             @IntRange(from = 1) final int height,
+                             @IntRange(from = 1) final int stride,
+                             @IntRange(from = 1, to = MAX_RADIUS) final int radius, final int dy) {
+        final int r = Math.min(Math.max(radius, 1), MAX_RADIUS);
+
+        // 输出行及上一帧对应行的半径范围都不超出边缘时，结果与上一帧对应行相同
+        final int start = Math.max(r, r - dy);
+        final int end = Math.min(height - r, height - r - dy);
+        if (start >= end) {
+            blurRows(input, output, width, height, stride, r, 0, height);
+            return;
+        }
+
+        if (dy != 0) {
+            System.arraycopy(output, (start + dy) * stride, output, start * stride,
+                    (end - start) * stride);
+        }
+        blurRows(input, output, width, height, stride, r, 0, start);
+        blurRows(input, output, width, height, stride, r, end, height);
+    }
+
+    /**
+     * 获取持有的像素缓冲内存
+     *
+     * @return 内存大小，单位为字节
+     */
+    public long getByteCount() {
+        return sizeOf(mPixels) + sizeOf(mBuffer);
+    }
+
+    /**
+     * 释放缓存
+     */
+    public void release() {
+        mPixels = null;
+        mPixelBuffer = null;
+        mBuffer = null;
+        for (final BlurTask task : mTasks) {
+            task.release();
+        }
+    }
+
+    /**
+     * 执行任务
+     *
+     * @param taskCount 任务数，为1或全部任务
+     */
+    private void invoke(final int taskCount) {
+        if (taskCount == 1) {
+            mTasks[0].compute();
+        } else {
+            // 调用线程处理首个任务，其余任务提交到公共线程池
+            for (final BlurTask task : mTasks) {
+                task.reinitialize();
+            }
+            ForkJoinTask.invokeAll(mTasks);
+        }
+
+        for (int i = 0; i < taskCount; i++) {
+            mTasks[i].clear();
+        }
+    }
+
+    /**
+     * 模糊一行或一列像素，只输出指定范围
+     *
+     * @param src    源像素
+     * @param dst    目标像素
+     * @param offset 起始偏移
+     * @param step   像素间隔
+     * @param length 像素数
+     * @param radius 模糊半径
+     * @param stack  栈
+     * @param from   输出起始位置
+     * @param to     输出结束位置（不包含）
+     */
+    static void blurLine(@NonNull final int[] src, @NonNull final int[] dst, final int offset,
+                         final int step, final int length, final int radius,
+                         @NonNull final int[] stack, final int from, final int to) {
+        final int div = radius * 2 + 1;
+        final int divSum = (radius + 1) * (radius + 1);
+        // 以乘法及移位代替除法，radius <= MAX_RADIUS 时结果不会溢出
+        final int mul = (int) ((1L << 24) / divSum + 1);
+        final int last = length - 1;
+
+        int sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int in0 = 0, in1 = 0, in2 = 0, in3 = 0;
+        int out0 = 0, out1 = 0, out2 = 0, out3 = 0;
+
+        // 以输出起始位置为中心初始化栈
+        for (int i = -radius; i <= radius; i++) {
+            final int p = src[offset + Math.min(Math.max(from + i, 0), last) * step];
+            final int weight = radius + 1 - Math.abs(i);
+            final int c0 = p >>> 24, c1 = (p >> 16) & 0xff, c2 = (p >> 8) & 0xff, c3 = p & 0xff;
+            stack[i + radius] = p;
+            sum0 += c0 * weight;
+            sum1 += c1 * weight;
+            sum2 += c2 * weight;
+            sum3 += c3 * weight;
+            if (i > 0) {
+                in0 += c0;
+                in1 += c1;
+                in2 += c2;
+                in3 += c3;
+            } else {
+                out0 += c0;
+                out1 += c1;
+                out2 += c2;
+                out3 += c3;
+            }
+        }
+
+        int stackPointer = radius;
+        int index = offset + from * step;
+        for (int x = from; x < to; x++, index += step) {
+            dst[index] = ((sum0 * mul) >>> 24) << 24 | ((sum1 * mul) >>> 24) << 16
+                    | ((sum2 * mul) >>> 24) << 8 | ((sum3 * mul) >>> 24);
+
+            sum0 -= out0;
+            sum1 -= out1;
+            sum2 -= out2;
+            sum3 -= out3;
+
+            // 移出栈底像素，压入新像素
+            int stackIndex = stackPointer - radius + div;
+            if (stackIndex >= div) {
+                stackIndex -= div;
+            }
+            int p = stack[stackIndex];
+            out0 -= p >>> 24;
+            out1 -= (p >> 16) & 0xff;
+            out2 -= (p >> 8) & 0xff;
+            out3 -= p & 0xff;
+
+            p = src[offset + Math.min(x + radius + 1, last) * step];
+            stack[stackIndex] = p;
+            in0 += p >>> 24;
+            in1 += (p >> 16) & 0xff;
+            in2 += (p >> 8) & 0xff;
+            in3 += p & 0xff;
+
+            sum0 += in0;
+            sum1 += in1;
+            sum2 += in2;
+            sum3 += in3;
+
+            if (++stackPointer == div) {
+                stackPointer = 0;
+            }
+            p = stack[stackPointer];
+            final int c0 = p >>> 24, c1 = (p >> 16) & 0xff, c2 = (p >> 8) & 0xff, c3 = p & 0xff;
+            out0 += c0;
+            out1 += c1;
+            out2 += c2;
+            out3 += c3;
+            in0 -= c0;
+            in1 -= c1;
+            in2 -= c2;
+            in3 -= c3;
+        }
+    }
+
+    /**
+     * 获取整数数组占用的内存
+     *
+     * @param array 整数数组
+     * @return 内存大小，单位为字节，数组为空时为0
+     */
+    static long sizeOf(@Nullable final int[] array) {
+        return array == null ? 0 : (long) array.length * Integer.BYTES;
+    }
+
+    /**
+     * 模糊任务，处理连续的若干行或若干列
+     */
+    private static final class BlurTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private int[] mSrc;
+
+        private int[] mDst;
+
+        private int mWidth;
+
+        private int mHeight;
+
+        private int mStride;
+
+        private int mRadius;
+
+        private boolean mHorizontal;
+
+        private int mStart;
+
+        private int mEnd;
+
+        /**
+         * 行或列内的输出范围
+         */
+        private int mFrom;
+
+        private int mTo;
+
+        @Nullable
+        private int[] mStack;
+
+        void setup(@NonNull final int[] src, @NonNull final int[] dst, final int width,
+                   final int height, final int stride, final int radius, final boolean horizontal,
+                   final int start, final int end, final int from, final int to) {
+            mSrc = src;
+            mDst = dst;
+            mWidth = width;
+            mHeight = height;
+            mStride = stride;
+            mRadius = radius;
+            mHorizontal = horizontal;
+            mStart = start;
+            mEnd = end;
+            mFrom = from;
+            mTo = to;
+
+            final int div = radius * 2 + 1;
+            if (mStack == null || mStack.length < div) {
+                mStack = new int[div];
+            }
+        }
+
+        void clear() {
+            mSrc = null;
+            mDst = null;
+        }
+
+        void release() {
+            clear();
+            mStack = null;
+        }
+
+        @Override
+        protected void compute() {
+            if (mHorizontal) {
+                for (int y = mStart; y < mEnd; y++) {
+                    blurLine(mSrc, mDst, y * mStride, 1, mWidth, mRadius, mStack, mFrom, mTo);
+                }
+            } else {
+                for (int x = mStart; x < mEnd; x++) {
+                    blurLine(mSrc, mDst, x, mStride, mHeight, mRadius, mStack, mFrom, mTo);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.IntBuffer;
+
+/**
+ * 栈模糊引擎
+ * <p>
+ * 基于{@link StackBlur}在CPU多核并行模糊。半径不变时复用上一帧的模糊结果：内容为上一帧的纯垂直平移
+ * （如滚动）时，平移上一帧的结果，只重新模糊新露出的行及边缘半径范围内的行；内容局部变化
+ * （如光标闪烁）时，只重新模糊变化分块外扩半径后的区域。平移及局部变化均由同一次遍历的{@link PixelHashes}判断，
+ * 输入为模糊视图已计算内容哈希的位图时直接复用其哈希。支持{@link Bitmap.Config#ARGB_8888}、
+ * {@link Bitmap.Config#RGB_565}及{@link Bitmap.Config#ALPHA_8}，后两者按颜色整数读写像素，
+ * 模糊位图格式与输入位图相同
+ *
+ * @author obby-xiang
+ */
+public class StackBlurEngine extends BitmapBlurEngine {
+    @NonNull
+    private final PixelHashes mPixelHashes = new PixelHashes();
+
+    @NonNull
+    private final ScrollDetector mScrollDetector = new ScrollDetector();
+
+    @NonNull
+    private final TileDiff mTileDiff = new TileDiff();
+
+    /**
+     * 变化区域
+     */
+    @NonNull
+    private final Rect mDirtyRect = new Rect();
+
+    @Nullable
+    private StackBlur mStackBlur;
+
+    @Nullable
+    private Bitmap mBlurBitmap;
+
+    /**
+     * 输入像素
+     */
+    @Nullable
+    private int[] mPixels;
+
+    @Nullable
+    private IntBuffer mPixelBuffer;
+
+    /**
+     * 模糊结果像素，跨帧保留
+     */
+    @Nullable
+    private int[] mOutput;
+
+    @Nullable
+    private IntBuffer mOutputBuffer;
+
+    /**
+     * 模糊结果对应的半径、尺寸及格式，无模糊结果时半径为0
+     */
+    private int mOutputRadius;
+
+    private int mOutputWidth;
+
+    private int mOutputHeight;
+
+    @Nullable
+    private Bitmap.Config mOutputConfig;
+
+    /**
+     * 构造栈模糊引擎
+     */
+    public StackBlurEngine() {
+        super(BlurPyramid.DEFAULT_MAX_BLUR_RADIUS);
+    }
+
+    @Override
+    protected boolean isConfigSupported(@NonNull Bitmap.Config config) {
+        return config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.RGB_565
+                || config == Bitmap.Config.ALPHA_8;
+    }
+
+    @NonNull
+    @Override
+    protected Bitmap onBlur(@NonNull Bitmap bitmap, float blurRadius) {
+        if (mStackBlur == null) {
+            mStackBlur = new StackBlur();
+        }
+
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final Bitmap.Config config = bitmap.getConfig();
+        // 非ARGB_8888格式按颜色整数读写，行跨度为宽度
+        final boolean raw = config == Bitmap.Config.ARGB_8888;
+        final int stride = raw ? bitmap.getRowBytes() >> 2 : width;
+        final int length = stride * height;
+        final int radius = Math.min(Math.max(Math.round(blurRadius), 1), StackBlur.MAX_RADIUS);
+
+        if (mPixels == null || mPixels.length < length) {
+            mPixels = new int[length];
+            mPixelBuffer = IntBuffer.wrap(mPixels);
+            mOutput = new int[length];
+            mOutputBuffer = IntBuffer.wrap(mOutput);
+            mOutputRadius = 0;
+        }
+
+        if (raw) {
+            final IntBuffer pixelBuffer = mPixelBuffer;
+            pixelBuffer.rewind();
+            bitmap.copyPixelsToBuffer(pixelBuffer);
+        } else {
+            bitmap.getPixels(mPixels, 0, stride, 0, 0, width, height);
+        }
+
+        // 像素读取方式与内容哈希相同，输入位图已计算哈希时无需再次遍历像素
+        PixelHashes pixelHashes = getInputPixelHashes();
+        if (pixelHashes == null) {
+            pixelHashes = mPixelHashes;
+            pixelHashes.compute(mPixels, width, height, stride);
+        }
+
+        final int dy = mScrollDetector.detect(pixelHashes, height / 2);
+        final Rect dirtyRect = mDirtyRect;
+        final boolean comparable = mTileDiff.diff(pixelHashes, dirtyRect);
+        final boolean reusable = radius == mOutputRadius && width == mOutputWidth
+                && height == mOutputHeight && config == mOutputConfig;
+        if (reusable && dy != ScrollDetector.NO_SCROLL && dy != 0) {
+            mStackBlur.blurScrolled(mPixels, mOutput, width, height, stride, radius, dy);
+        } else if (reusable && comparable) {
+            // 变化分块外扩半径范围内的输出受影响
+            if (!dirtyRect.isEmpty()) {
+                mStackBlur.blurRect(mPixels, mOutput, width, height, stride, radius,
+                        Math.max(dirtyRect.left - radius, 0), Math.max(dirtyRect.top - radius, 0),
+                        Math.min(dirtyRect.right + radius, width),
+                        Math.min(dirtyRect.bottom + radius, height));
+            }
+        } else {
+            mStackBlur.blurRows(mPixels, mOutput, width, height, stride, radius, 0, height);
+        }
+        mOutputRadius = radius;
+        mOutputWidth = width;
+        mOutputHeight = height;
+        mOutputConfig = config;
+
+        // 尺寸及格式不变时直接覆盖，无需擦除
+        if (mBlurBitmap == null || mBlurBitmap.getWidth() != width
+                || mBlurBitmap.getHeight() != height || mBlurBitmap.getConfig() != config) {
+            mBlurBitmap = BitmapUtils.resetBitmap(mBlurBitmap, width, height, config);
+        }
+        if (raw) {
+            final IntBuffer outputBuffer = mOutputBuffer;
+            outputBuffer.rewind();
+            mBlurBitmap.copyPixelsFromBuffer(outputBuffer);
+        } else {
+            mBlurBitmap.setPixels(mOutput, 0, stride, 0, 0, width, height);
+        }
+
+        return mBlurBitmap;
+    }
+
+    @Override
+    public long getByteCount() {
+        return super.getByteCount() + StackBlur.sizeOf(mPixels) + StackBlur.sizeOf(mOutput)
+                + mPixelHashes.getByteCount()
+                + (mStackBlur == null ? 0 : mStackBlur.getByteCount());
+    }
+
+    @Override
+    public void trimMemory() {
+        // 水平模糊的中间结果每次模糊时重建，保留跨帧复用的模糊结果像素
+        if (mStackBlur != null) {
+            mStackBlur.release();
+        }
+    }
+
+    @Override
+    protected void onRelease() {
+        if (mBlurBitmap != null) {
+            BitmapUtils.releaseBitmap(mBlurBitmap);
+            mBlurBitmap = null;
+        }
+
+        if (mStackBlur != null) {
+            mStackBlur.release();
+            mStackBlur = null;
+        }
+
+        mPixelHashes.release();
+        mScrollDetector.release();
+        mTileDiff.release();
+        mPixels = null;
+        mPixelBuffer = null;
+        mOutput = null;
+        mOutputBuffer = null;
+        mOutputRadius = 0;
+        mOutputConfig = null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.obby.android.blurview;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 分块差异
+ * <p>
+ * 将{@link PixelHashes}按{@link PixelHashes#TILE_SIZE}分块的哈希与上一帧比较，得到变化分块的外接区域，
+ * 自身不遍历像素，用于局部变化（光标闪烁、进度动画等）时只重新模糊变化的部分。预热后不再分配内存
+ *
+ * @author obby-xiang
+ */
+final class TileDiff {
+    @Nullable
+    private long[] mPrevTileHashes;
+
+    private int mWidth;
+
+    private int mHeight;
+
+    private boolean mHasPrev;
+
+    /**
+     * 计算与上一帧的差异
+     *
+     * @param pixelHashes 当前帧的像素哈希
+     * @param outRect     变化分块的外接区域，无变化时为空
+     * @return 是否可比较，首帧或尺寸变化时不可比较
+     */
+    boolean diff(@NonNull final PixelHashes pixelHashes, @NonNull final Rect outRect) {
+        final int width = pixelHashes.getWidth();
+        final int height = pixelHashes.getHeight();
+        final int columns = pixelHashes.getColumns();
+        final int rows = pixelHashes.getRows();
+        final int tileCount = columns * rows;
+        if (mPrevTileHashes == null || mPrevTileHashes.length < tileCount) {
+            mPrevTileHashes = new long[tileCount];
+            mHasPrev = false;
+        }
+
+        final long[] tileHashes = pixelHashes.getTileHashes();
+        final boolean comparable = mHasPrev && width == mWidth && height == mHeight;
+        outRect.setEmpty();
+        if (comparable) {
+            final long[] prevTileHashes = mPrevTileHashes;
+            int minX = columns;
+            int minY = rows;
+            int maxX = -1;
+            int maxY = -1;
+            for (int ty = 0; ty < rows; ty++) {
+                for (int tx = 0; tx < columns; tx++) {
+                    final int index = ty * columns + tx;
+                    if (tileHashes[index] != prevTileHashes[index]) {
+                        minX = Math.min(minX, tx);
+                        minY = Math.min(minY, ty);
+                        maxX = Math.max(maxX, tx);
+                        maxY = Math.max(maxY, ty);
+                    }
+                }
+            }
+            if (maxX >= 0) {
+                final int tileSize = PixelHashes.TILE_SIZE;
+                outRect.set(minX * tileSize, minY * tileSize,
+                        Math.min((maxX + 1) * tileSize, width),
+                        Math.min((maxY + 1) * tileSize, height));
+            }
+        }
+
+        // 当前分块哈希作为下一帧的上一帧
+        System.arraycopy(tileHashes, 0, mPrevTileHashes, 0, tileCount);
+        mWidth = width;
+        mHeight = height;
+        mHasPrev = true;
+
+        return comparable;
+    }
+
+    /**
+     * 释放缓存
+     */
+    void release() {
+        mPrevTileHashes = null;
+        mHasPrev = false;
+    }
+}
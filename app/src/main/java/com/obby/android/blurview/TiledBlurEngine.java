@@ -0,0 +1,333 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分块模糊引擎
+ * <p>
+ * 将采样位图切分为固定大小的分块，每个分块连同外扩模糊半径的边缘独立以{@link StackBlur}模糊，
+ * 只写回分块本身，结果与整体模糊相同。分块在ForkJoin公共线程池并行处理，每个线程只持有一个分块的缓冲，
+ * 峰值临时内存取决于分块大小而非视图面积，适用于采样大小较小的全屏或平板尺寸视图。
+ * 支持{@link Bitmap.Config#ARGB_8888}、{@link Bitmap.Config#RGB_565}及{@link Bitmap.Config#ALPHA_8}，
+ * 模糊位图格式与输入位图相同
+ *
+ * @author obby-xiang
+ */
+public class TiledBlurEngine extends BitmapBlurEngine {
+    /**
+     * 默认分块大小
+     */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    /**
+     * 分块大小
+     */
+    private final int mTileSize;
+
+    /**
+     * 并行任务，每个任务持有一个分块的缓冲
+     */
+    @NonNull
+    private final TileTask[] mTasks;
+
+    /**
+     * 下一个待处理的分块
+     */
+    @NonNull
+    private final AtomicInteger mNextTile = new AtomicInteger();
+
+    /**
+     * 写回模糊位图的画布，各任务互斥使用
+     */
+    @NonNull
+    private final Canvas mOutputCanvas = new Canvas();
+
+    @NonNull
+    private final Paint mOutputPaint = createSrcPaint();
+
+    @Nullable
+    private Bitmap mBlurBitmap;
+
+    /**
+     * 当前模糊的输入位图、半径及分块布局，仅在模糊期间有效
+     */
+    @Nullable
+    private Bitmap mInput;
+
+    private int mRadius;
+
+    private int mColumns;
+
+    private int mTileCount;
+
+    /**
+     * 构造分块模糊引擎，分块大小为{@link #DEFAULT_TILE_SIZE}，并行数为处理器核心数
+     */
+    public TiledBlurEngine() {
+        this(DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构造分块模糊引擎
+     *
+     * @param tileSize    分块大小
+     * @param parallelism 并行数
+     */
+    public TiledBlurEngine(@IntRange(from = 1) int tileSize, @IntRange(from = 1) int parallelism) {
+        super(BlurPyramid.DEFAULT_MAX_BLUR_RADIUS);
+        mTileSize = Math.max(tileSize, 1);
+        mTasks = new TileTask[Math.max(parallelism, 1)];
+        for (int i = 0; i < mTasks.length; i++) {
+            mTasks[i] = new TileTask();
+        }
+    }
+
+    /**
+     * 获取分块大小
+     *
+     * @return 分块大小
+     */
+    public int getTileSize() {
+        return mTileSize;
+    }
+
+    @Override
+    protected boolean isConfigSupported(@NonNull Bitmap.Config config) {
+        return config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.RGB_565
+                || config == Bitmap.Config.ALPHA_8;
+    }
+
+    @NonNull
+    @Override
+    protected Bitmap onBlur(@NonNull Bitmap bitmap, float blurRadius) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final Bitmap.Config config = bitmap.getConfig();
+
+        // 各分块覆盖整个位图，尺寸及格式不变时直接覆盖，无需擦除
+        if (mBlurBitmap == null || mBlurBitmap.getWidth() != width
+                || mBlurBitmap.getHeight() != height || mBlurBitmap.getConfig() != config) {
+            mBlurBitmap = BitmapUtils.resetBitmap(mBlurBitmap, width, height, config);
+        }
+
+        mInput = bitmap;
+        mRadius = Math.min(Math.max(Math.round(blurRadius), 1), StackBlur.MAX_RADIUS);
+        mColumns = (width + mTileSize - 1) / mTileSize;
+        mTileCount = mColumns * ((height + mTileSize - 1) / mTileSize);
+        mNextTile.set(0);
+        mOutputCanvas.setBitmap(mBlurBitmap);
+
+        if (mTileCount == 1 || mTasks.length == 1) {
+            mTasks[0].compute();
+        } else {
+            // 调用线程处理首个任务，其余任务提交到公共线程池，各任务领取分块直至处理完毕
+            for (final TileTask task : mTasks) {
+                task.reinitialize();
+            }
+            ForkJoinTask.invokeAll(mTasks);
+        }
+
+        mOutputCanvas.setBitmap(null);
+        mInput = null;
+
+        return mBlurBitmap;
+    }
+
+    @Override
+    public long getByteCount() {
+        long byteCount = super.getByteCount();
+        for (final TileTask task : mTasks) {
+            byteCount += task.getByteCount();
+        }
+        return byteCount;
+    }
+
+    @Override
+    protected void onRelease() {
+        if (mBlurBitmap != null) {
+            BitmapUtils.releaseBitmap(mBlurBitmap);
+            mBlurBitmap = null;
+        }
+
+        for (final TileTask task : mTasks) {
+            task.release();
+        }
+    }
+
+    /**
+     * 创建覆盖目标像素的画笔
+     *
+     * @return 画笔
+     */
+    @NonNull
+    private static Paint createSrcPaint() {
+        final Paint paint = new Paint();
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        return paint;
+    }
+
+    /**
+     * 分块任务
+     */
+    private final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 单线程栈模糊，分块间已并行
+         */
+        @NonNull
+        private final StackBlur mStackBlur = new StackBlur(1);
+
+        @NonNull
+        private final Canvas mCanvas = new Canvas();
+
+        @NonNull
+        private final Paint mPaint = createSrcPaint();
+
+        @NonNull
+        private final Rect mSrcRect = new Rect();
+
+        @NonNull
+        private final Rect mDstRect = new Rect();
+
+        /**
+         * 分块位图，包含外扩半径的边缘
+         */
+        @Nullable
+        private Bitmap mTileBitmap;
+
+        @Nullable
+        private int[] mPixels;
+
+        @Nullable
+        private IntBuffer mPixelBuffer;
+
+        @Nullable
+        private int[] mOutput;
+
+        @Nullable
+        private IntBuffer mOutputBuffer;
+
+        @Override
+        protected void compute() {
+            int tile;
+            while ((tile = mNextTile.getAndIncrement()) < mTileCount) {
+                blurTile(tile);
+            }
+        }
+
+        /**
+         * 模糊分块并写回模糊位图
+         *
+         * @param tile 分块索引
+         */
+        private void blurTile(final int tile) {
+            final Bitmap input = mInput;
+            final int width = input.getWidth();
+            final int height = input.getHeight();
+            final int radius = mRadius;
+            final int left = tile % mColumns * mTileSize;
+            final int top = tile / mColumns * mTileSize;
+            final int right = Math.min(left + mTileSize, width);
+            final int bottom = Math.min(top + mTileSize, height);
+
+            // 外扩半径的边缘提供分块边界的邻域，位图边界处与整体模糊一样不外扩
+            final int haloLeft = Math.max(left - radius, 0);
+            final int haloTop = Math.max(top - radius, 0);
+            final int haloWidth = Math.min(right + radius, width) - haloLeft;
+            final int haloHeight = Math.min(bottom + radius, height) - haloTop;
+
+            final Bitmap tileBitmap = requireTileBitmap(Math.min(mTileSize + radius * 2, width),
+                    Math.min(mTileSize + radius * 2, height));
+            mCanvas.setBitmap(tileBitmap);
+            mCanvas.drawBitmap(input, -haloLeft, -haloTop, mPaint);
+            mCanvas.setBitmap(null);
+
+            final IntBuffer pixelBuffer = mPixelBuffer;
+            pixelBuffer.rewind();
+            tileBitmap.copyPixelsToBuffer(pixelBuffer);
+
+            mStackBlur.blurRect(mPixels, mOutput, haloWidth, haloHeight,
+                    tileBitmap.getRowBytes() >> 2, radius, left - haloLeft, top - haloTop,
+                    right - haloLeft, bottom - haloTop);
+
+            final IntBuffer outputBuffer = mOutputBuffer;
+            outputBuffer.rewind();
+            tileBitmap.copyPixelsFromBuffer(outputBuffer);
+
+            // 只写回分块本身
+            mSrcRect.set(left - haloLeft, top - haloTop, right - haloLeft, bottom - haloTop);
+            mDstRect.set(left, top, right, bottom);
+            synchronized (mOutputCanvas) {
+                mOutputCanvas.drawBitmap(tileBitmap, mSrcRect, mDstRect, mOutputPaint);
+            }
+        }
+
+        /**
+         * 获取分块位图，尺寸变化时重建分块位图及像素缓冲
+         *
+         * @param width  宽度
+         * @param height 高度
+         * @return 分块位图
+         */
+        @NonNull
+        private Bitmap requireTileBitmap(final int width, final int height) {
+            if (mTileBitmap != null && mTileBitmap.getWidth() == width
+                    && mTileBitmap.getHeight() == height) {
+                return mTileBitmap;
+            }
+
+            mTileBitmap = BitmapUtils.resetBitmap(mTileBitmap, width, height);
+            final int length = (mTileBitmap.getRowBytes() >> 2) * height;
+            if (mPixels == null || mPixels.length != length) {
+                mPixels = new int[length];
+                mPixelBuffer = IntBuffer.wrap(mPixels);
+                mOutput = new int[length];
+                mOutputBuffer = IntBuffer.wrap(mOutput);
+            }
+            return mTileBitmap;
+        }
+
+        /**
+         * 获取分块位图及像素缓冲占用的内存
+         *
+         * @return 内存大小
+         */
+        long getByteCount() {
+            final Bitmap tileBitmap = mTileBitmap;
+            return (tileBitmap == null ? 0 : tileBitmap.getAllocationByteCount())
+                    + StackBlur.sizeOf(mPixels) + StackBlur.sizeOf(mOutput)
+                    + mStackBlur.getByteCount();
+        }
+
+        /**
+         * 释放分块缓冲
+         */
+        void release() {
+            if (mTileBitmap != null) {
+                BitmapUtils.releaseBitmap(mTileBitmap);
+                mTileBitmap = null;
+            }
+
+            mPixels = null;
+            mPixelBuffer = null;
+            mOutput = null;
+            mOutputBuffer = null;
+            mStackBlur.release();
+        }
+    }
+}
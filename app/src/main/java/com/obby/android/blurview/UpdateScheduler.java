@@ -0,0 +1,250 @@
+package com.obby.android.blurview;
+
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+/**
+ * 更新调度器
+ * <p>
+ * 基于{@link Choreographer}将更新请求合并为每个垂直同步信号最多一次，并按最大更新频率限流，
+ * 限流期间跳过的更新在间隔结束后补发一次
+ *
+ * @author obby-xiang
+ */
+final class UpdateScheduler {
+    /**
+     * 帧时间容差，避免帧时间取整导致多跳过一帧
+     */
+    private static final long FRAME_TIME_TOLERANCE_MILLIS = 2L;
+
+    @NonNull
+    private final Callback mCallback;
+
+    /**
+     * 最小更新间隔，为0时不限流
+     */
+    private long mMinIntervalMillis;
+
+    /**
+     * 上次更新的帧时间
+     */
+    private long mLastUpdateTimeMillis;
+
+    private boolean mHasUpdated;
+
+    /**
+     * 是否有待处理的强制更新
+     */
+    private boolean mPendingForce;
+
+    private boolean mFrameCallbackPosted;
+
+    /**
+     * 是否正在帧回调内分发更新
+     */
+    private boolean mIsDispatchingFrame;
+
+    /**
+     * 正在分发的帧回调的帧时间
+     */
+    private long mDispatchingFrameTimeMillis;
+
+    /**
+     * 被合并或推迟的更新请求次数
+     */
+    private long mCoalescedCount;
+
+    private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> {
+        mFrameCallbackPosted = false;
+        mIsDispatchingFrame = true;
+        mDispatchingFrameTimeMillis = frameTimeNanos / 1_000_000L;
+        try {
+            dispatch(mDispatchingFrameTimeMillis, true);
+        } finally {
+            mIsDispatchingFrame = false;
+        }
+    };
+
+    /**
+     * 构造更新调度器
+     *
+     * @param callback 更新回调
+     */
+    UpdateScheduler(@NonNull final Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 设置最大更新频率
+     *
+     * @param maxUpdateRate 每秒最大更新次数，为0时不限流
+     */
+    void setMaxUpdateRate(@IntRange(from = 0) final int maxUpdateRate) {
+        mMinIntervalMillis = maxUpdateRate > 0 ? 1000L / maxUpdateRate : 0L;
+    }
+
+    /**
+     * 请求在下一帧更新
+     *
+     * @param force 是否强制更新，强制更新不受限流影响
+     */
+    void requestUpdate(final boolean force) {
+        mPendingForce |= force;
+        if (mFrameCallbackPosted) {
+            mCoalescedCount++;
+        }
+
+        // 重新投递以取消可能存在的延迟回调
+        final Choreographer choreographer = Choreographer.getInstance();
+        choreographer.removeFrameCallback(mFrameCallback);
+        choreographer.postFrameCallback(mFrameCallback);
+        mFrameCallbackPosted = true;
+    }
+
+    /**
+     * 绘制前回调，在当前帧内更新
+     */
+    void onPreDraw() {
+        // 帧回调期间动画时钟锁定为垂直同步时间，与帧回调的帧时间一致
+        dispatch(AnimationUtils.currentAnimationTimeMillis(), false);
+    }
+
+    /**
+     * 是否有待处理的帧回调更新
+     *
+     * @return 是否有待处理的更新
+     */
+    boolean isUpdatePending() {
+        return mFrameCallbackPosted;
+    }
+
+    /**
+     * 在给定帧时间分发时是否会更新，即本帧尚未更新且未被限流
+     *
+     * @param frameTimeMillis 帧时间
+     * @return 是否会更新
+     */
+    boolean willUpdate(final long frameTimeMillis) {
+        return !isUpdatedInFrame(frameTimeMillis) && !isRateLimited(frameTimeMillis);
+    }
+
+    /**
+     * 是否正在帧回调内分发更新
+     *
+     * @return 是否正在分发
+     */
+    boolean isDispatchingFrame() {
+        return mIsDispatchingFrame;
+    }
+
+    /**
+     * 获取正在分发的帧回调的帧时间，同一帧内各帧回调的帧时间相同
+     *
+     * @return 帧时间
+     */
+    long getDispatchingFrameTimeMillis() {
+        return mDispatchingFrameTimeMillis;
+    }
+
+    /**
+     * 获取被合并到同一帧或因限流推迟的更新请求次数
+     *
+     * @return 合并次数
+     */
+    long getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    /**
+     * 取消待处理的更新
+     */
+    void cancel() {
+        if (mFrameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            mFrameCallbackPosted = false;
+        }
+
+        mPendingForce = false;
+        mHasUpdated = false;
+    }
+
+    /**
+     * 分发更新
+     *
+     * @param frameTimeMillis   帧时间
+     * @param fromFrameCallback 是否来自帧回调
+     */
+    private void dispatch(final long frameTimeMillis, final boolean fromFrameCallback) {
+        final boolean force = mPendingForce;
+
+        // 同一帧只更新一次
+        if (isUpdatedInFrame(frameTimeMillis)) {
+            mCoalescedCount++;
+            if (force) {
+                requestUpdate(true);
+            }
+            return;
+        }
+
+        if (isRateLimited(frameTimeMillis)) {
+            mCoalescedCount++;
+            if (!mFrameCallbackPosted) {
+                Choreographer.getInstance().postFrameCallbackDelayed(mFrameCallback,
+                        mMinIntervalMillis - (frameTimeMillis - mLastUpdateTimeMillis));
+                mFrameCallbackPosted = true;
+            }
+            return;
+        }
+
+        // 本次更新已覆盖补发的更新
+        if (mFrameCallbackPosted && !fromFrameCallback) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            mFrameCallbackPosted = false;
+        }
+
+        mPendingForce = false;
+        mLastUpdateTimeMillis = frameTimeMillis;
+        mHasUpdated = true;
+
+        // 帧回调不在绘制流程内，更新后需重绘视图
+        mCallback.onUpdate(force, force || fromFrameCallback);
+    }
+
+    /**
+     * 给定帧时间所在的帧是否已更新
+     *
+     * @param frameTimeMillis 帧时间
+     * @return 是否已更新
+     */
+    private boolean isUpdatedInFrame(final long frameTimeMillis) {
+        return mHasUpdated && frameTimeMillis == mLastUpdateTimeMillis;
+    }
+
+    /**
+     * 在给定帧时间更新是否被限流，强制更新不受限流影响
+     *
+     * @param frameTimeMillis 帧时间
+     * @return 是否被限流
+     */
+    private boolean isRateLimited(final long frameTimeMillis) {
+        return !mPendingForce && mHasUpdated && mMinIntervalMillis > 0
+                && frameTimeMillis - mLastUpdateTimeMillis + FRAME_TIME_TOLERANCE_MILLIS
+                < mMinIntervalMillis;
+    }
+
+    /**
+     * 更新回调
+     */
+    interface Callback {
+        /**
+         * 更新
+         *
+         * @param force      是否强制更新
+         * @param invalidate 是否重绘视图
+         */
+        void onUpdate(boolean force, boolean invalidate);
+    }
+}
@@ -0,0 +1,174 @@
+package com.obby.android.blurview;
+
+import android.graphics.Matrix;
+import android.graphics.Outline;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 不模糊视图遮罩
+ * <p>
+ * 将不模糊视图编译为目标视图坐标系下的路径，矩形及圆角矩形轮廓取自视图的{@link ViewOutlineProvider}，
+ * 其他轮廓使用视图边界。路径缓存至失效，重建时记录各视图相对目标视图的区域及变换矩阵，
+ * 绘制前比较以发现平移、属性动画或过渡引起的移动，无需布局；轮廓在布局外变化时由调用方使其失效
+ *
+ * @author obby-xiang
+ */
+final class ViewExcludeMask {
+    @NonNull
+    private final Path mPath = new Path();
+
+    @NonNull
+    private final Rect mViewRect = new Rect();
+
+    @NonNull
+    private final Rect mOutlineRect = new Rect();
+
+    @NonNull
+    private final Outline mOutline = new Outline();
+
+    @NonNull
+    private View[] mViews = new View[0];
+
+    /**
+     * 重建时各视图相对目标视图的区域
+     */
+    @NonNull
+    private Rect[] mViewRects = new Rect[0];
+
+    /**
+     * 重建时各视图的变换矩阵
+     */
+    @NonNull
+    private Matrix[] mViewMatrices = new Matrix[0];
+
+    private boolean mIsValid;
+
+    /**
+     * 设置不模糊视图
+     *
+     * @param views 不模糊视图
+     */
+    void setViews(@NonNull final View[] views) {
+        mViews = views;
+        mViewRects = new Rect[views.length];
+        mViewMatrices = new Matrix[views.length];
+        for (int i = 0; i < views.length; i++) {
+            mViewRects[i] = new Rect();
+            mViewMatrices[i] = new Matrix();
+        }
+        mIsValid = false;
+    }
+
+    /**
+     * 是否没有不模糊视图
+     *
+     * @return 是否没有不模糊视图
+     */
+    boolean isEmpty() {
+        return mViews.length == 0;
+    }
+
+    /**
+     * 使遮罩失效，下次获取时重建
+     */
+    void invalidate() {
+        mIsValid = false;
+    }
+
+    /**
+     * 检查视图相对目标视图的区域或变换矩阵是否与重建时不同，不同时使遮罩失效
+     *
+     * @param targetView 目标视图
+     * @return 是否已失效，遮罩需要重绘
+     */
+    boolean checkMoved(@NonNull final View targetView) {
+        if (!mIsValid) {
+            return false;
+        }
+
+        final View[] views = mViews;
+        for (int i = 0; i < views.length; i++) {
+            final View view = views[i];
+            if (!ViewUtils.getRectRelativeToTarget(view, targetView, mViewRect)
+                    .equals(mViewRects[i]) || !view.getMatrix().equals(mViewMatrices[i])) {
+                mIsValid = false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取遮罩路径
+     *
+     * @param targetView 目标视图
+     * @return 目标视图坐标系下的遮罩路径
+     */
+    @NonNull
+    Path getPath(@NonNull final View targetView) {
+        if (!mIsValid) {
+            rebuild(targetView);
+            mIsValid = true;
+        }
+        return mPath;
+    }
+
+    /**
+     * 重建遮罩路径
+     *
+     * @param targetView 目标视图
+     */
+    private void rebuild(@NonNull final View targetView) {
+        mPath.rewind();
+
+        final View[] views = mViews;
+        for (int i = 0; i < views.length; i++) {
+            final View view = views[i];
+            final Rect viewRect = ViewUtils.getRectRelativeToTarget(view, targetView, mViewRect);
+            mViewRects[i].set(viewRect);
+            mViewMatrices[i].set(view.getMatrix());
+            if (viewRect.isEmpty()) {
+                continue;
+            }
+
+            final float radius = getOutline(view, mOutlineRect);
+            if (radius < 0) {
+                mPath.addRect(viewRect.left, viewRect.top, viewRect.right, viewRect.bottom,
+                        Path.Direction.CW);
+            } else {
+                final Rect outlineRect = mOutlineRect;
+                outlineRect.offset(viewRect.left, viewRect.top);
+                mPath.addRoundRect(outlineRect.left, outlineRect.top, outlineRect.right,
+                        outlineRect.bottom, radius, radius, Path.Direction.CW);
+            }
+        }
+    }
+
+    /**
+     * 获取视图的矩形或圆角矩形轮廓
+     *
+     * @param view    视图
+     * @param outRect 视图坐标系下的轮廓区域
+     * @return 圆角半径，无矩形或圆角矩形轮廓时为-1
+     */
+    private float getOutline(@NonNull final View view, @NonNull final Rect outRect) {
+        final ViewOutlineProvider outlineProvider = view.getOutlineProvider();
+        if (outlineProvider == null) {
+            return -1f;
+        }
+
+        final Outline outline = mOutline;
+        outline.setEmpty();
+        outlineProvider.getOutline(view, outline);
+        if (outline.isEmpty() || !outline.getRect(outRect)) {
+            return -1f;
+        }
+
+        return Math.max(outline.getRadius(), 0f);
+    }
+}
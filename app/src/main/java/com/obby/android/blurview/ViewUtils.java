@@ -16,6 +16,11 @@ import androidx.annotation.Nullable;
  * @author obby-xiang
  */
 public final class ViewUtils {
+    /**
+     * 位置缓存，视图方法只在主线程调用
+     */
+    private static final int[] sLocation = new int[2];
+
     private ViewUtils() {
     }
 
@@ -29,14 +34,29 @@ public final class ViewUtils {
     @NonNull
     public static Rect getRectRelativeToTarget(@Nullable final View view,
                                                @Nullable final View targetView) {
-        final Rect viewRect = getViewRectOnScreen(view);
+        return getRectRelativeToTarget(view, targetView, new Rect());
+    }
+
+    /**
+     * 获取视图相对目标视图的区域，只能在主线程调用
+     *
+     * @param view       视图
+     * @param targetView 目标视图
+     * @param outRect    输出区域
+     * @return 输出区域
+     */
+    @NonNull
+    public static Rect getRectRelativeToTarget(@Nullable final View view,
+                                               @Nullable final View targetView,
+                                               @NonNull final Rect outRect) {
+        getViewRectOnScreen(view, outRect);
 
         if (targetView != null) {
-            final Rect targetRect = getViewRectOnScreen(targetView);
-            viewRect.offset(-targetRect.left, -targetRect.top);
+            targetView.getLocationOnScreen(sLocation);
+            outRect.offset(-sLocation[0], -sLocation[1]);
         }
 
-        return viewRect;
+        return outRect;
     }
 
     /**
@@ -47,16 +67,30 @@ public final class ViewUtils {
      */
     @NonNull
     public static Rect getViewRectOnScreen(@Nullable final View view) {
-        final Rect rect = new Rect();
+        return getViewRectOnScreen(view, new Rect());
+    }
 
-        if (view != null) {
-            final int[] location = new int[2];
-            view.getLocationOnScreen(location);
-            rect.set(location[0], location[1], location[0] + view.getRight() - view.getLeft(),
-                    location[1] + view.getBottom() - view.getTop());
+    /**
+     * 获取视图在屏幕的区域，只能在主线程调用
+     *
+     * @param view    视图
+     * @param outRect 输出区域
+     * @return 输出区域
+     */
+    @NonNull
+    public static Rect getViewRectOnScreen(@Nullable final View view,
+                                           @NonNull final Rect outRect) {
+        if (view == null) {
+            outRect.setEmpty();
+            return outRect;
         }
 
-        return rect;
+        final int[] location = sLocation;
+        view.getLocationOnScreen(location);
+        outRect.set(location[0], location[1], location[0] + view.getRight() - view.getLeft(),
+                location[1] + view.getBottom() - view.getTop());
+
+        return outRect;
     }
 
     /**
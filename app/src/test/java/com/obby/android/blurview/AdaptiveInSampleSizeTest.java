@@ -0,0 +1,61 @@
+package com.obby.android.blurview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 自适应采样大小测试
+ *
+ * @author obby-xiang
+ */
+public class AdaptiveInSampleSizeTest {
+    private static final long BUDGET_NANOS = 4_000_000L;
+
+    private AdaptiveInSampleSize mAdaptiveInSampleSize;
+
+    @Before
+    public void setUp() {
+        mAdaptiveInSampleSize = new AdaptiveInSampleSize();
+        mAdaptiveInSampleSize.setRange(2, 8);
+        mAdaptiveInSampleSize.setBudgetNanos(BUDGET_NANOS);
+        mAdaptiveInSampleSize.reset(4);
+    }
+
+    @Test
+    public void overBudget_increasesAfterEnoughSamples() {
+        for (int i = 0; i < 7; i++) {
+            assertFalse(mAdaptiveInSampleSize.onUpdateCost(BUDGET_NANOS * 2));
+        }
+        assertTrue(mAdaptiveInSampleSize.onUpdateCost(BUDGET_NANOS * 2));
+        assertEquals(5, mAdaptiveInSampleSize.getInSampleSize());
+    }
+
+    @Test
+    public void withinHysteresis_keepsInSampleSize() {
+        // 4 -> 3 预估耗时为 3ms * 16 / 9 > 4ms * 0.6
+        for (int i = 0; i < 32; i++) {
+            assertFalse(mAdaptiveInSampleSize.onUpdateCost(3_000_000L));
+        }
+        assertEquals(4, mAdaptiveInSampleSize.getInSampleSize());
+    }
+
+    @Test
+    public void underBudget_decreasesDownToMin() {
+        for (int i = 0; i < 64; i++) {
+            mAdaptiveInSampleSize.onUpdateCost(100_000L);
+        }
+        assertEquals(2, mAdaptiveInSampleSize.getInSampleSize());
+    }
+
+    @Test
+    public void reset_clampsToRange() {
+        mAdaptiveInSampleSize.reset(16);
+        assertEquals(8, mAdaptiveInSampleSize.getInSampleSize());
+        mAdaptiveInSampleSize.reset(1);
+        assertEquals(2, mAdaptiveInSampleSize.getInSampleSize());
+    }
+}
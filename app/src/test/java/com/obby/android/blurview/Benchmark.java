@@ -0,0 +1,141 @@
+package com.obby.android.blurview;
+
+import androidx.annotation.NonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 基准测试工具
+ * <p>
+ * 预热后逐次计时取中位数，并通过线程内存分配计数统计每次操作在调用线程上分配的内存。
+ * 基准测试耗时较长，默认跳过，通过{@code -Pblurview.benchmark=true}开启
+ *
+ * @author obby-xiang
+ */
+final class Benchmark {
+    /**
+     * 开启基准测试的系统属性
+     */
+    static final String ENABLED_PROPERTY = "blurview.benchmark";
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 20;
+
+    private static final int DEFAULT_ITERATIONS = 50;
+
+    /**
+     * 线程管理接口，缓存避免每次读取分配计数时查找平台接口分配内存
+     */
+    private static final java.lang.management.ThreadMXBean sThreadMXBean =
+            ManagementFactory.getThreadMXBean();
+
+    private Benchmark() {
+    }
+
+    /**
+     * 是否开启基准测试
+     *
+     * @return 是否开启
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * 测量操作
+     *
+     * @param name      名称
+     * @param operation 操作
+     * @return 测量结果
+     */
+    @NonNull
+    static Result measure(@NonNull final String name, @NonNull final Runnable operation) {
+        return measure(name, DEFAULT_WARMUP_ITERATIONS, DEFAULT_ITERATIONS, operation);
+    }
+
+    /**
+     * 测量操作
+     *
+     * @param name             名称
+     * @param warmupIterations 预热次数
+     * @param iterations       测量次数
+     * @param operation        操作
+     * @return 测量结果
+     */
+    @NonNull
+    static Result measure(@NonNull final String name, final int warmupIterations,
+                          final int iterations, @NonNull final Runnable operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+
+        final long[] times = new long[iterations];
+        final long startBytes = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            final long startTime = System.nanoTime();
+            operation.run();
+            times[i] = System.nanoTime() - startTime;
+        }
+        final long endBytes = getAllocatedBytes();
+
+        // 扣除读取分配计数本身分配的内存
+        final long overheadBytes = getAllocatedBytes() - endBytes;
+        final long allocatedBytes = Math.max(endBytes - startBytes - overheadBytes, 0);
+
+        Arrays.sort(times);
+        final Result result = new Result(name, times[iterations / 2], times[0],
+                times[iterations - 1], allocatedBytes / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * 获取当前线程累计分配的内存
+     *
+     * @return 内存大小，虚拟机不支持时为0
+     */
+    static long getAllocatedBytes() {
+        if (sThreadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) sThreadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * 测量结果
+     */
+    static final class Result {
+        @NonNull
+        final String mName;
+
+        final long mMedianNanos;
+
+        final long mMinNanos;
+
+        final long mMaxNanos;
+
+        /**
+         * 每次操作在调用线程上分配的内存
+         */
+        final long mAllocatedBytes;
+
+        Result(@NonNull final String name, final long medianNanos, final long minNanos,
+               final long maxNanos, final long allocatedBytes) {
+            mName = name;
+            mMedianNanos = medianNanos;
+            mMinNanos = minNanos;
+            mMaxNanos = maxNanos;
+            mAllocatedBytes = allocatedBytes;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-48s median %9.3f ms  min %9.3f ms  max %9.3f ms"
+                            + "  alloc %8d B/op", mName, mMedianNanos / 1e6, mMinNanos / 1e6,
+                    mMaxNanos / 1e6, mAllocatedBytes);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.obby.android.blurview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 模糊内核基准测试
+ * <p>
+ * 以1080x2400的窗口为基准，按采样大小及模糊半径组合测量栈模糊、内容指纹及滚动检测的耗时和内存分配
+ *
+ * @author obby-xiang
+ */
+public class BlurKernelBenchmark {
+    private static final int WINDOW_WIDTH = 1080;
+
+    private static final int WINDOW_HEIGHT = 2400;
+
+    private static final int[] IN_SAMPLE_SIZES = {2, 4, 8};
+
+    private static final int[] RADII = {4, 16, 25};
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+    }
+
+    @Test
+    public void stackBlur_sequential() {
+        final StackBlur stackBlur = new StackBlur(1);
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            final int width = WINDOW_WIDTH / inSampleSize;
+            final int height = WINDOW_HEIGHT / inSampleSize;
+            final int[] pixels = createPixels(width * height);
+            for (final int radius : RADII) {
+                final Benchmark.Result result = Benchmark.measure(String.format(
+                        "stackBlur sequential %dx%d r=%d", width, height, radius),
+                        () -> stackBlur.blur(pixels, width, height, width, radius));
+
+                // 预热后每次模糊不再分配内存
+                assertEquals(0, result.mAllocatedBytes);
+            }
+        }
+    }
+
+    @Test
+    public void stackBlur_parallel() {
+        final StackBlur stackBlur = new StackBlur();
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            final int width = WINDOW_WIDTH / inSampleSize;
+            final int height = WINDOW_HEIGHT / inSampleSize;
+            final int[] pixels = createPixels(width * height);
+            for (final int radius : RADII) {
+                Benchmark.measure(String.format("stackBlur parallel %dx%d r=%d", width, height,
+                        radius), () -> stackBlur.blur(pixels, width, height, width, radius));
+            }
+        }
+    }
+
+    @Test
+    public void pixelHashes() {
+        final PixelHashes pixelHashes = new PixelHashes();
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            final int width = WINDOW_WIDTH / inSampleSize;
+            final int height = WINDOW_HEIGHT / inSampleSize;
+            final int[] pixels = createPixels(width * height);
+            pixelHashes.compute(pixels, width, height, width);
+            final Benchmark.Result result = Benchmark.measure(String.format(
+                    "pixelHashes %dx%d", width, height),
+                    () -> pixelHashes.compute(pixels, width, height, width));
+
+            assertEquals(0, result.mAllocatedBytes);
+        }
+    }
+
+    @Test
+    public void scrollDetector_changedNoScroll() {
+        final ScrollDetector scrollDetector = new ScrollDetector();
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            final int width = WINDOW_WIDTH / inSampleSize;
+            final int height = WINDOW_HEIGHT / inSampleSize;
+
+            // 纯色背景上底部内容每帧交替变化，未平移
+            final PixelHashes[] frames = new PixelHashes[2];
+            for (int i = 0; i < frames.length; i++) {
+                final int[] pixels = createPixels(width * height);
+                final int uniformLength = width * (height - height / 8);
+                Arrays.fill(pixels, 0, uniformLength, 0xFFFFFFFF);
+                for (int j = uniformLength; j < pixels.length; j++) {
+                    pixels[j] += i;
+                }
+                frames[i] = new PixelHashes();
+                frames[i].compute(pixels, width, height, width);
+            }
+
+            final int[] frame = {0};
+            final Benchmark.Result result = Benchmark.measure(String.format(
+                    "scrollDetector changed %dx%d", width, height), () -> {
+                        scrollDetector.detect(frames[frame[0]], height / 2);
+                        frame[0] ^= 1;
+                    });
+
+            assertEquals(0, result.mAllocatedBytes);
+        }
+    }
+
+    private static int[] createPixels(final int length) {
+        final int[] pixels = new int[length];
+        final Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,326 @@
+package com.obby.android.blurview;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.internal.bytecode.ShadowConstants;
+import org.robolectric.shadows.ShadowSystemClock;
+import org.robolectric.shadows.ShadowTrace;
+import org.robolectric.shadows.ShadowView;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 模糊视图内存分配测试
+ * <p>
+ * 预热后每帧的绘制前分发（捕获及模糊）和绘制在主线程上不分配内存。捕获源为含嵌套子视图及不模糊视图的视图树，
+ * 模糊视图后有部分覆盖的不透明同级视图，覆盖检查、可见区域、遮罩及子视图遍历均为真实实现。
+ * Robolectric的视图影子每次调用真实方法时创建反射器及参数数组，测试以{@link ShadowAllocationFreeView}
+ * 仅替换绘制路径上的这些影子方法，改为通过方法句柄直接调用真实方法。Robolectric首次执行各调用点时延迟链接并分配内存，
+ * 因此预热足够多帧并测量多轮；测量前后比较模糊指标，确认每帧都经过了捕获及模糊
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(shadows = {BlurViewAllocationTest.ShadowAllocationFreeView.class,
+        BlurViewAllocationTest.ShadowAllocationFreeViewGroup.class})
+public class BlurViewAllocationTest {
+    private static final int WARMUP_FRAMES = 200;
+
+    private static final int FRAMES = 50;
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * 每帧修改颜色的嵌套子视图
+     */
+    private View mChangingChild;
+
+    private View mContent;
+
+    private BlurView mBlurView;
+
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        final ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        final Activity activity = controller.get();
+        activity.requestWindowFeature(Window.FEATURE_NO_TITLE);
+
+        final FrameLayout root = new FrameLayout(activity);
+        final FrameLayout content = new FrameLayout(activity);
+        content.setBackgroundColor(Color.WHITE);
+        root.addView(content, new FrameLayout.LayoutParams(200, 200));
+        mContent = content;
+
+        // 嵌套子视图
+        final LinearLayout column = new LinearLayout(activity);
+        column.setOrientation(LinearLayout.VERTICAL);
+        content.addView(column, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        for (int i = 0; i < 4; i++) {
+            final FrameLayout row = new FrameLayout(activity);
+            final View cell = new View(activity);
+            cell.setBackgroundColor(Color.rgb(i * 60, 0, 255 - i * 60));
+            row.addView(cell, new FrameLayout.LayoutParams(100, 40));
+            column.addView(row, new LinearLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, 50));
+            if (i == 1) {
+                mChangingChild = cell;
+            }
+        }
+
+        // 不模糊视图
+        final View exclude = new View(activity);
+        exclude.setBackgroundColor(Color.GREEN);
+        content.addView(exclude, new FrameLayout.LayoutParams(50, 50));
+
+        mBlurView = new BlurView(activity);
+        mBlurView.setBlurEngine(new StackBlurEngine());
+        mBlurView.setBlurSource(content);
+        mBlurView.setViewExcludes(Collections.singleton(exclude));
+        root.addView(mBlurView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+
+        // 部分覆盖模糊视图的不透明同级视图，覆盖检查需遍历且不能暂停更新
+        final View occluder = new View(activity);
+        occluder.setBackgroundColor(Color.BLACK);
+        root.addView(occluder, new FrameLayout.LayoutParams(60, 60));
+
+        activity.setContentView(root);
+        controller.start().resume().visible();
+
+        mCanvas = new Canvas(Bitmap.createBitmap(mBlurView.getWidth(), mBlurView.getHeight(),
+                Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void frame_contentChanged_noAllocation() {
+        assertEquals(0, measureAllocatedBytes(true));
+    }
+
+    @Test
+    public void frame_contentUnchanged_noAllocation() {
+        assertEquals(0, measureAllocatedBytes(false));
+    }
+
+    @Test
+    public void frame_largeBlurRadius_noAllocation() {
+        mBlurView.setBlurRadius(100f);
+        assertEquals(0, measureAllocatedBytes(true));
+    }
+
+    /**
+     * 测量预热后每帧分配的内存，并确认每帧都更新，内容变化时每帧都模糊，否则每帧都跳过模糊。
+     * JVM及Robolectric在代码路径首次执行时延迟解析常量及链接调用点，可能落在任意一轮中，因此测量多轮取最小值，
+     * 每帧都分配的内存在每轮都会计入
+     *
+     * @param changeContent 是否每帧修改内容
+     * @return 分配内存最少的一轮分配的内存
+     */
+    private long measureAllocatedBytes(final boolean changeContent) {
+        int frame = 0;
+        for (; frame < WARMUP_FRAMES; frame++) {
+            frame(frame, changeContent);
+        }
+
+        long minAllocatedBytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && minAllocatedBytes > 0; round++) {
+            final BlurMetrics startMetrics = mBlurView.getBlurMetrics();
+            long allocatedBytes = 0;
+            for (int i = 0; i < FRAMES; i++, frame++) {
+                allocatedBytes += frame(frame, changeContent);
+            }
+            final BlurMetrics endMetrics = mBlurView.getBlurMetrics();
+
+            assertEquals(FRAMES, endMetrics.getUpdateCount() - startMetrics.getUpdateCount());
+            assertEquals(changeContent ? 0 : FRAMES,
+                    endMetrics.getSkippedUpdateCount() - startMetrics.getSkippedUpdateCount());
+            minAllocatedBytes = Math.min(minAllocatedBytes, allocatedBytes);
+        }
+        return minAllocatedBytes;
+    }
+
+    /**
+     * 推进时钟并按需修改内容，再分发绘制前回调及绘制模糊视图
+     *
+     * @param frame         帧序号
+     * @param changeContent 是否修改内容
+     * @return 绘制前分发及绘制分配的内存
+     */
+    private long frame(final int frame, final boolean changeContent) {
+        // Robolectric保留所有已结束的跟踪区段，每帧清空避免记录增长时分配内存；系统跟踪默认关闭，
+        // 清空后重新关闭，避免记录计数器
+        ShadowTrace.reset();
+        ShadowTrace.setEnabled(false);
+        ShadowSystemClock.advanceBy(16L, TimeUnit.MILLISECONDS);
+        if (changeContent) {
+            mChangingChild.setBackgroundColor(frame % 2 == 0 ? Color.RED : Color.BLUE);
+        }
+
+        final long startBytes = Benchmark.getAllocatedBytes();
+        mContent.getViewTreeObserver().dispatchOnPreDraw();
+        mBlurView.draw(mCanvas);
+        return Benchmark.getAllocatedBytes() - startBytes;
+    }
+
+    /**
+     * 不分配内存的视图影子。Robolectric的影子方法经反射器调用真实方法，每次调用创建反射器及参数数组，
+     * 这里改为通过方法句柄精确调用插桩保留的真实方法，视图行为不变
+     */
+    @Implements(View.class)
+    public static class ShadowAllocationFreeView extends ShadowView {
+        private static final MethodHandle DRAW = findDirectMethod("draw", void.class,
+                Canvas.class);
+
+        private static final MethodHandle INVALIDATE = findDirectMethod("invalidate",
+                void.class);
+
+        private static final MethodHandle GET_SCROLL_X = findDirectMethod("getScrollX",
+                int.class);
+
+        private static final MethodHandle GET_SCROLL_Y = findDirectMethod("getScrollY",
+                int.class);
+
+        private static final MethodHandle GET_LOCATION_ON_SCREEN = findDirectMethod(
+                "getLocationOnScreen", void.class, int[].class);
+
+        private static final MethodHandle GET_GLOBAL_VISIBLE_RECT = findDirectMethod(
+                "getGlobalVisibleRect", boolean.class, Rect.class, Point.class);
+
+        @Implementation
+        @Override
+        protected void draw(Canvas canvas) {
+            try {
+                DRAW.invokeExact(realView, canvas);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected void invalidate() {
+            try {
+                INVALIDATE.invokeExact(realView);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected int getScrollX() {
+            try {
+                return (int) GET_SCROLL_X.invokeExact(realView);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected int getScrollY() {
+            try {
+                return (int) GET_SCROLL_Y.invokeExact(realView);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected void getLocationOnScreen(int[] outLocation) {
+            try {
+                GET_LOCATION_ON_SCREEN.invokeExact(realView, outLocation);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Implementation
+        @Override
+        protected boolean getGlobalVisibleRect(Rect rect, Point globalOffset) {
+            try {
+                return (boolean) GET_GLOBAL_VISIBLE_RECT.invokeExact(realView, rect,
+                        globalOffset);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * 查找插桩保留的视图真实方法
+         *
+         * @param name           方法名
+         * @param returnType     返回类型
+         * @param parameterTypes 参数类型
+         * @return 方法句柄
+         */
+        @NonNull
+        private static MethodHandle findDirectMethod(@NonNull final String name,
+                                                     @NonNull final Class<?> returnType,
+                                                     @NonNull final Class<?>... parameterTypes) {
+            try {
+                final Method method = View.class.getDeclaredMethod(ShadowConstants.ROBO_PREFIX
+                        + View.class.getName().replace('.', '_') + "$" + name, parameterTypes);
+                method.setAccessible(true);
+                final MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+                if (methodHandle.type().returnType() != returnType) {
+                    throw new IllegalStateException("Unexpected return type: " + method);
+                }
+                return methodHandle;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @NonNull
+        private static RuntimeException rethrow(@NonNull final Throwable throwable) {
+            if (throwable instanceof RuntimeException) {
+                return (RuntimeException) throwable;
+            }
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            }
+            return new IllegalStateException(throwable);
+        }
+    }
+
+    /**
+     * 视图组影子，影子方法按视图影子的类型绑定，视图组影子需继承视图影子
+     */
+    @Implements(ViewGroup.class)
+    public static class ShadowAllocationFreeViewGroup extends ShadowAllocationFreeView {
+    }
+}
@@ -0,0 +1,127 @@
+package com.obby.android.blurview;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 模糊视图基准测试
+ * <p>
+ * 在Robolectric原生图形模式下运行一个窗口，每帧修改内容后依次分发绘制前回调及绘制模糊视图，
+ * 测量捕获、模糊、绘制整个周期的耗时及每帧内存分配，各阶段耗时取自{@link BlurMetrics}
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(qualifiers = "w360dp-h800dp-xxhdpi")
+public class BlurViewBenchmark {
+    private static final int[] IN_SAMPLE_SIZES = {2, 4, 8};
+
+    private static final float[] BLUR_RADII = {16f, 100f};
+
+    private static final int ROW_COUNT = 40;
+
+    private static final long FRAME_INTERVAL_MILLIS = 16L;
+
+    private View mDecorView;
+
+    private LinearLayout mContent;
+
+    private BlurView mBlurView;
+
+    private Canvas mCanvas;
+
+    private int mFrame;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final FrameLayout root = new FrameLayout(activity);
+
+        mContent = new LinearLayout(activity);
+        mContent.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final View row = new View(activity);
+            row.setBackgroundColor(Color.HSVToColor(new float[]{i * 360f / ROW_COUNT, 1f, 1f}));
+            mContent.addView(row, new LinearLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, 0, 1f));
+        }
+        root.addView(mContent, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+
+        mBlurView = new BlurView(activity);
+        mBlurView.setBlurEngine(new StackBlurEngine());
+        root.addView(mBlurView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+
+        activity.setContentView(root);
+        mDecorView = activity.getWindow().getDecorView();
+        mDecorView.measure(
+                View.MeasureSpec.makeMeasureSpec(mDecorView.getWidth(), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(mDecorView.getHeight(), View.MeasureSpec.EXACTLY));
+        mDecorView.layout(0, 0, mDecorView.getWidth(), mDecorView.getHeight());
+
+        mCanvas = new Canvas(Bitmap.createBitmap(mBlurView.getWidth(), mBlurView.getHeight(),
+                Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void frame_contentChanged() {
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            for (final float blurRadius : BLUR_RADII) {
+                mBlurView.setInSampleSize(inSampleSize);
+                mBlurView.setBlurRadius(blurRadius);
+                measure(String.format("frame %dx%d s=%d r=%.0f", mBlurView.getWidth(),
+                        mBlurView.getHeight(), inSampleSize, blurRadius), true);
+            }
+        }
+    }
+
+    @Test
+    public void frame_contentUnchanged() {
+        for (final int inSampleSize : IN_SAMPLE_SIZES) {
+            mBlurView.setInSampleSize(inSampleSize);
+            measure(String.format("frame unchanged %dx%d s=%d", mBlurView.getWidth(),
+                    mBlurView.getHeight(), inSampleSize), false);
+        }
+    }
+
+    private void measure(final String name, final boolean changeContent) {
+        Benchmark.measure(name, () -> {
+            // 推进时钟，每次分发都是新的一帧
+            ShadowSystemClock.advanceBy(FRAME_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (changeContent) {
+                // 滚动内容使每帧捕获不同
+                mContent.setTranslationY(mFrame++ % 2 == 0 ? 0f : 1f);
+            }
+            mDecorView.getViewTreeObserver().dispatchOnPreDraw();
+            mBlurView.draw(mCanvas);
+        });
+
+        final BlurMetrics metrics = mBlurView.getBlurMetrics();
+        System.out.printf("%-48s capture %.3f ms  blur %.3f ms  draw %.3f ms  %d bytes%n", name,
+                metrics.getCaptureTimeNanos() / 1e6, metrics.getBlurTimeNanos() / 1e6,
+                metrics.getDrawTimeNanos() / 1e6, metrics.getByteCount());
+    }
+}
@@ -0,0 +1,195 @@
+package com.obby.android.blurview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 模糊视图共享捕获测试，同一帧内会捕获且采样大小、位图格式及像素相位相同的模糊视图共用一次捕获，
+ * 暂停及被限流的模糊视图不计入捕获区域
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BlurViewSharedCaptureTest {
+    private CaptureCountingView mContent;
+
+    private BlurView mFirstBlurView;
+
+    private BlurView mSecondBlurView;
+
+    private View mOccluder;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final FrameLayout root = new FrameLayout(activity);
+
+        mContent = new CaptureCountingView(activity);
+        mContent.setBackgroundColor(Color.RED);
+        root.addView(mContent, new FrameLayout.LayoutParams(200, 200));
+
+        mFirstBlurView = createBlurView(activity);
+        root.addView(mFirstBlurView, new FrameLayout.LayoutParams(100, 100));
+        mSecondBlurView = createBlurView(activity);
+        root.addView(mSecondBlurView, createLayoutParams(100, 100));
+
+        // 覆盖第二个模糊视图的不透明同级视图
+        mOccluder = new View(activity);
+        mOccluder.setBackgroundColor(Color.BLACK);
+        mOccluder.setVisibility(View.GONE);
+        root.addView(mOccluder, createLayoutParams(100, 100));
+
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 200, 200);
+        idleFrame();
+    }
+
+    @Test
+    public void frameUpdate_sameConfig_sharesCapture() {
+        assertEquals(1, requestUpdatesAndCountCaptures());
+    }
+
+    @Test
+    public void frameUpdate_differentConfig_capturesSeparately() {
+        mSecondBlurView.setBitmapConfig(Bitmap.Config.RGB_565);
+        idleFrame();
+
+        assertEquals(2, requestUpdatesAndCountCaptures());
+    }
+
+    @Test
+    public void frameUpdate_differentPhase_capturesSeparately() {
+        mSecondBlurView.setLayoutParams(createLayoutParams(101, 100));
+        idleFrame();
+
+        assertEquals(2, requestUpdatesAndCountCaptures());
+    }
+
+    @Test
+    public void frameUpdate_suspendedView_capturesOwnRect() {
+        mOccluder.setVisibility(View.VISIBLE);
+        idleFrame();
+        mContent.reset();
+
+        mFirstBlurView.setBlurRadius(mFirstBlurView.getBlurRadius() + 1f);
+        mSecondBlurView.setBlurRadius(mSecondBlurView.getBlurRadius() + 1f);
+        idleFrame();
+
+        assertEquals(1, mContent.mCaptureCount);
+        assertEquals(new Rect(0, 0, 100, 100), mContent.mCaptureBounds);
+    }
+
+    @Test
+    public void preDraw_rateLimitedView_capturesOwnRect() {
+        mSecondBlurView.setMaxBlurRate(1);
+        mContent.reset();
+
+        // 两个模糊视图均在上一帧更新，第二个模糊视图在限流间隔内
+        ShadowSystemClock.advanceBy(16L, TimeUnit.MILLISECONDS);
+        mContent.getViewTreeObserver().dispatchOnPreDraw();
+
+        assertEquals(1, mContent.mCaptureCount);
+        assertEquals(new Rect(0, 0, 100, 100), mContent.mCaptureBounds);
+    }
+
+    /**
+     * 两个模糊视图请求更新后分发一帧，返回源视图被捕获的次数
+     *
+     * @return 捕获次数
+     */
+    private int requestUpdatesAndCountCaptures() {
+        final long firstUpdateCount = mFirstBlurView.getBlurMetrics().getUpdateCount();
+        final long secondUpdateCount = mSecondBlurView.getBlurMetrics().getUpdateCount();
+        mContent.reset();
+
+        mFirstBlurView.setBlurRadius(mFirstBlurView.getBlurRadius() + 1f);
+        mSecondBlurView.setBlurRadius(mSecondBlurView.getBlurRadius() + 1f);
+        idleFrame();
+
+        assertEquals(firstUpdateCount + 1, mFirstBlurView.getBlurMetrics().getUpdateCount());
+        assertEquals(secondUpdateCount + 1, mSecondBlurView.getBlurMetrics().getUpdateCount());
+        return mContent.mCaptureCount;
+    }
+
+    @NonNull
+    private static FrameLayout.LayoutParams createLayoutParams(final int left, final int top) {
+        final FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(100, 100);
+        layoutParams.leftMargin = left;
+        layoutParams.topMargin = top;
+        return layoutParams;
+    }
+
+    @NonNull
+    private BlurView createBlurView(@NonNull final Context context) {
+        final BlurView blurView = new BlurView(context);
+        blurView.setBlurEngine(new StackBlurEngine());
+        blurView.setBlurSource(mContent);
+        return blurView;
+    }
+
+    /**
+     * 推进一帧并执行到期的帧回调
+     */
+    private static void idleFrame() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(16L));
+    }
+
+    /**
+     * 统计捕获期间绘制次数及捕获区域的源视图
+     */
+    private static final class CaptureCountingView extends View {
+        int mCaptureCount;
+
+        /**
+         * 各次捕获的裁剪区域的并集
+         */
+        final Rect mCaptureBounds = new Rect();
+
+        private final Rect mClipBounds = new Rect();
+
+        CaptureCountingView(@NonNull final Context context) {
+            super(context);
+        }
+
+        void reset() {
+            mCaptureCount = 0;
+            mCaptureBounds.setEmpty();
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (BlurController.obtain(this).isCapturing()) {
+                mCaptureCount++;
+                canvas.getClipBounds(mClipBounds);
+                mCaptureBounds.union(mClipBounds);
+            }
+            super.draw(canvas);
+        }
+    }
+}
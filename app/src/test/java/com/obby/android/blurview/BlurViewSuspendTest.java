@@ -0,0 +1,99 @@
+package com.obby.android.blurview;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 模糊视图暂停更新测试
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BlurViewSuspendTest {
+    private static final int FRAMES = 3;
+
+    private Activity mActivity;
+
+    private FrameLayout mRoot;
+
+    private View mContent;
+
+    private BlurView mBlurView;
+
+    @Before
+    public void setUp() {
+        // 未分发窗口焦点，与不可获取焦点的弹出窗口及分屏未获焦点的窗口相同
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mRoot = new FrameLayout(mActivity);
+
+        mContent = new View(mActivity);
+        mContent.setBackgroundColor(Color.RED);
+        mRoot.addView(mContent, new FrameLayout.LayoutParams(200, 200));
+
+        mBlurView = new BlurView(mActivity);
+        mBlurView.setBlurEngine(new StackBlurEngine());
+        mRoot.addView(mBlurView, new FrameLayout.LayoutParams(100, 100));
+
+        mActivity.setContentView(mRoot);
+        mRoot.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+        mRoot.layout(0, 0, 200, 200);
+    }
+
+    @Test
+    public void update_windowWithoutFocus_notSuspended() {
+        assertFalse(mBlurView.hasWindowFocus());
+
+        final long updateCount = mBlurView.getBlurMetrics().getUpdateCount();
+        frames();
+
+        final BlurMetrics metrics = mBlurView.getBlurMetrics();
+        assertEquals(updateCount + FRAMES, metrics.getUpdateCount());
+        assertEquals(0, metrics.getSuspendedUpdateCount());
+    }
+
+    @Test
+    public void update_occludedByOpaqueSibling_suspended() {
+        final View cover = new View(mActivity);
+        cover.setBackgroundColor(Color.BLUE);
+        mRoot.addView(cover, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        cover.layout(0, 0, 200, 200);
+
+        final long updateCount = mBlurView.getBlurMetrics().getUpdateCount();
+        final long suspendedCount = mBlurView.getBlurMetrics().getSuspendedUpdateCount();
+        frames();
+
+        final BlurMetrics metrics = mBlurView.getBlurMetrics();
+        assertEquals(updateCount, metrics.getUpdateCount());
+        assertEquals(suspendedCount + FRAMES, metrics.getSuspendedUpdateCount());
+    }
+
+    /**
+     * 分发若干帧绘制前回调，每帧推进时钟
+     */
+    private void frames() {
+        final View decorView = mActivity.getWindow().getDecorView();
+        for (int i = 0; i < FRAMES; i++) {
+            ShadowSystemClock.advanceBy(16L, TimeUnit.MILLISECONDS);
+            decorView.getViewTreeObserver().dispatchOnPreDraw();
+        }
+    }
+}
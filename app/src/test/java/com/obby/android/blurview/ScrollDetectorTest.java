@@ -0,0 +1,124 @@
+package com.obby.android.blurview;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 滚动检测测试
+ *
+ * @author obby-xiang
+ */
+public class ScrollDetectorTest {
+    private static final int WIDTH = 32;
+
+    private static final int HEIGHT = 80;
+
+    @Test
+    public void detect_firstFrameNoScroll() {
+        assertEquals(ScrollDetector.NO_SCROLL,
+                new ScrollDetector().detect(hash(createRows(0, 1)), HEIGHT / 2));
+    }
+
+    @Test
+    public void detect_verticalScroll() {
+        final ScrollDetector detector = new ScrollDetector();
+        detector.detect(hash(createRows(0, 1)), HEIGHT / 2);
+
+        assertEquals(12, detector.detect(hash(createRows(12, 1)), HEIGHT / 2));
+        assertEquals(-5, detector.detect(hash(createRows(7, 1)), HEIGHT / 2));
+        assertEquals(0, detector.detect(hash(createRows(7, 1)), HEIGHT / 2));
+    }
+
+    @Test
+    public void detect_changedContentNoScroll() {
+        final ScrollDetector detector = new ScrollDetector();
+        detector.detect(hash(createRows(0, 1)), HEIGHT / 2);
+
+        assertEquals(ScrollDetector.NO_SCROLL,
+                detector.detect(hash(createRows(0, 2)), HEIGHT / 2));
+    }
+
+    @Test
+    public void detect_uniformContentChangedNoScroll() {
+        // 纯色内容底部变化，各候选距离都比较到底部才不同
+        final ScrollDetector detector = new ScrollDetector();
+        detector.detect(hash(createRows(0, 1, HEIGHT - 8)), HEIGHT / 2);
+
+        assertEquals(ScrollDetector.NO_SCROLL,
+                detector.detect(hash(createRows(0, 2, HEIGHT - 8)), HEIGHT / 2));
+    }
+
+    @Test
+    public void detect_uniformContentScroll() {
+        final ScrollDetector detector = new ScrollDetector();
+        detector.detect(hash(createRows(0, 1, HEIGHT / 2)), HEIGHT / 2);
+
+        assertEquals(12, detector.detect(hash(createRows(12, 1, HEIGHT / 2)), HEIGHT / 2));
+    }
+
+    @Test
+    public void detect_beyondMaxDistNoScroll() {
+        final ScrollDetector detector = new ScrollDetector();
+        detector.detect(hash(createRows(0, 1)), 10);
+
+        assertEquals(ScrollDetector.NO_SCROLL,
+                detector.detect(hash(createRows(20, 1)), 10));
+    }
+
+    @Test
+    public void detect_reusedPixelHashes() {
+        // 内容哈希跨帧复用同一像素哈希，检测时需保留上一帧的行哈希
+        final ScrollDetector detector = new ScrollDetector();
+        final PixelHashes pixelHashes = new PixelHashes();
+        pixelHashes.compute(createRows(0, 1), WIDTH, HEIGHT, WIDTH);
+        detector.detect(pixelHashes, HEIGHT / 2);
+
+        pixelHashes.compute(createRows(12, 1), WIDTH, HEIGHT, WIDTH);
+        assertEquals(12, detector.detect(pixelHashes, HEIGHT / 2));
+    }
+
+    private static PixelHashes hash(final int[] pixels) {
+        final PixelHashes pixelHashes = new PixelHashes();
+        pixelHashes.compute(pixels, WIDTH, HEIGHT, WIDTH);
+        return pixelHashes;
+    }
+
+    /**
+     * 创建从指定行开始的一段内容，每行内容由行号决定
+     *
+     * @param firstRow 首行行号
+     * @param seed     内容种子
+     * @return 像素
+     */
+    private static int[] createRows(final int firstRow, final long seed) {
+        return createRows(firstRow, seed, 0);
+    }
+
+    /**
+     * 创建从指定行开始的一段内容，行号小于纯色行数的行为纯色，其余每行内容由行号决定
+     *
+     * @param firstRow    首行行号
+     * @param seed        内容种子
+     * @param uniformRows 纯色行数
+     * @return 像素
+     */
+    private static int[] createRows(final int firstRow, final long seed, final int uniformRows) {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            if (firstRow + y < uniformRows) {
+                Arrays.fill(pixels, y * WIDTH, (y + 1) * WIDTH, 0xFFFFFFFF);
+                continue;
+            }
+
+            final Random random = new Random(seed * 1_000_003L + firstRow + y);
+            for (int x = 0; x < WIDTH; x++) {
+                pixels[y * WIDTH + x] = random.nextInt();
+            }
+        }
+        return pixels;
+    }
+}
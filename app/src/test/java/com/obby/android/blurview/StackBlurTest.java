@@ -0,0 +1,138 @@
+package com.obby.android.blurview;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 栈模糊测试
+ *
+ * @author obby-xiang
+ */
+public class StackBlurTest {
+    @Test
+    public void blur_uniformPixelsUnchanged() {
+        final int[] pixels = new int[64 * 48];
+        Arrays.fill(pixels, 0x80402010);
+
+        new StackBlur().blur(pixels, 64, 48, 64, 8);
+
+        for (final int pixel : pixels) {
+            assertEquals(0x80402010, pixel);
+        }
+    }
+
+    @Test
+    public void blur_impulseSpreadsSymmetrically() {
+        final int size = 33;
+        final int[] pixels = new int[size * size];
+        pixels[size / 2 * size + size / 2] = 0xffffffff;
+
+        new StackBlur(1).blur(pixels, size, size, size, 4);
+
+        final int center = size / 2;
+        for (int d = 1; d <= 4; d++) {
+            final int left = pixels[center * size + center - d];
+            assertEquals(left, pixels[center * size + center + d]);
+            assertEquals(left, pixels[(center - d) * size + center]);
+            assertEquals(left, pixels[(center + d) * size + center]);
+        }
+        assertTrue((pixels[center * size + center] >>> 24) > 0);
+        assertEquals(0, pixels[center * size + center - 5]);
+    }
+
+    @Test
+    public void blur_parallelMatchesSequential() {
+        final int width = 301;
+        final int height = 257;
+        final int stride = 304;
+        final int[] pixels = new int[stride * height];
+        final Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+
+        final int[] sequential = pixels.clone();
+        final int[] parallel = pixels.clone();
+        new StackBlur(1).blur(sequential, width, height, stride, 25);
+        new StackBlur(4).blur(parallel, width, height, stride, 25);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void blurRows_matchesFullBlur() {
+        final int width = 120;
+        final int height = 90;
+        final int[] pixels = randomPixels(width * height, 1);
+
+        final int[] expected = pixels.clone();
+        new StackBlur(1).blur(expected, width, height, width, 9);
+
+        final int[] actual = new int[pixels.length];
+        new StackBlur(1).blurRows(pixels, actual, width, height, width, 9, 30, 61);
+
+        assertArrayEquals(Arrays.copyOfRange(expected, 30 * width, 61 * width),
+                Arrays.copyOfRange(actual, 30 * width, 61 * width));
+    }
+
+    @Test
+    public void blurScrolled_matchesFullBlur() {
+        for (final int dy : new int[]{7, -7, 0, 40}) {
+            final int width = 64;
+            final int height = 100;
+            final int radius = 6;
+            final int[] previous = randomPixels(width * height, 2);
+
+            // 当前第y行为上一帧第y+dy行，新露出的行为新内容
+            final int[] current = randomPixels(width * height, 3);
+            for (int y = Math.max(0, -dy); y < Math.min(height, height - dy); y++) {
+                System.arraycopy(previous, (y + dy) * width, current, y * width, width);
+            }
+
+            final StackBlur stackBlur = new StackBlur(1);
+            final int[] output = previous.clone();
+            stackBlur.blur(output, width, height, width, radius);
+            stackBlur.blurScrolled(current, output, width, height, width, radius, dy);
+
+            final int[] expected = current.clone();
+            stackBlur.blur(expected, width, height, width, radius);
+
+            assertArrayEquals(expected, output);
+        }
+    }
+
+    @Test
+    public void blurRect_matchesFullBlur() {
+        final int width = 100;
+        final int height = 80;
+        final int radius = 5;
+        final int[] pixels = randomPixels(width * height, 4);
+
+        final int[] expected = pixels.clone();
+        new StackBlur(1).blur(expected, width, height, width, radius);
+
+        final int[] actual = new int[pixels.length];
+        new StackBlur(1).blurRect(pixels, actual, width, height, width, radius, 20, 10, 57, 44);
+
+        for (int y = 10; y < 44; y++) {
+            for (int x = 20; x < 57; x++) {
+                assertEquals(expected[y * width + x], actual[y * width + x]);
+            }
+        }
+    }
+
+    private static int[] randomPixels(final int length, final long seed) {
+        final int[] pixels = new int[length];
+        final Random random = new Random(seed);
+        for (int i = 0; i < length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+}
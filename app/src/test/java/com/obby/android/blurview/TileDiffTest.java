@@ -0,0 +1,88 @@
+package com.obby.android.blurview;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分块差异测试，{@link Rect}需要Robolectric
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TileDiffTest {
+    private static final int WIDTH = 70;
+
+    private static final int HEIGHT = 50;
+
+    @Test
+    public void diff_firstFrameNotComparable() {
+        final Rect rect = new Rect();
+        assertFalse(new TileDiff().diff(hash(createPixels()), rect));
+        assertTrue(rect.isEmpty());
+    }
+
+    @Test
+    public void diff_unchangedEmpty() {
+        final TileDiff tileDiff = new TileDiff();
+        final Rect rect = new Rect();
+        tileDiff.diff(hash(createPixels()), rect);
+
+        assertTrue(tileDiff.diff(hash(createPixels()), rect));
+        assertTrue(rect.isEmpty());
+    }
+
+    @Test
+    public void diff_changedTilesBounds() {
+        final TileDiff tileDiff = new TileDiff();
+        final Rect rect = new Rect();
+        tileDiff.diff(hash(createPixels()), rect);
+
+        final int[] pixels = createPixels();
+        pixels[20 * WIDTH + 5] ^= 1;
+        pixels[40 * WIDTH + 66] ^= 1;
+        assertTrue(tileDiff.diff(hash(pixels), rect));
+
+        // 第1、2行分块，第0至4列分块，最后一列分块不满
+        assertEquals(new Rect(0, 16, WIDTH, 48), rect);
+    }
+
+    @Test
+    public void diff_reusedPixelHashes() {
+        // 内容哈希跨帧复用同一像素哈希，比较时需保留上一帧的分块哈希
+        final TileDiff tileDiff = new TileDiff();
+        final PixelHashes pixelHashes = new PixelHashes();
+        final Rect rect = new Rect();
+        final int[] pixels = createPixels();
+        pixelHashes.compute(pixels, WIDTH, HEIGHT, WIDTH);
+        tileDiff.diff(pixelHashes, rect);
+
+        pixels[3 * WIDTH + 40] ^= 1;
+        pixelHashes.compute(pixels, WIDTH, HEIGHT, WIDTH);
+        assertTrue(tileDiff.diff(pixelHashes, rect));
+        assertEquals(new Rect(32, 0, 48, 16), rect);
+    }
+
+    private static PixelHashes hash(final int[] pixels) {
+        final PixelHashes pixelHashes = new PixelHashes();
+        pixelHashes.compute(pixels, WIDTH, HEIGHT, WIDTH);
+        return pixelHashes;
+    }
+
+    private static int[] createPixels() {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        final Random random = new Random(7);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+}
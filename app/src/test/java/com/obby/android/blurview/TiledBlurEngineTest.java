@@ -0,0 +1,68 @@
+package com.obby.android.blurview;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * 分块模糊引擎测试，位图读写需要Robolectric原生图形模式
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class TiledBlurEngineTest {
+    private static final int WIDTH = 70;
+
+    private static final int HEIGHT = 50;
+
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void onBlur_smallRadiusMatchesWholeBlur() {
+        assertMatchesWholeBlur(5);
+    }
+
+    @Test
+    public void onBlur_haloLargerThanTileMatchesWholeBlur() {
+        assertMatchesWholeBlur(20);
+    }
+
+    private static void assertMatchesWholeBlur(final int radius) {
+        final Bitmap input = createBitmap();
+        final Bitmap expected = input.copy(Bitmap.Config.ARGB_8888, true);
+        new StackBlur().blur(expected, expected, radius);
+
+        final TiledBlurEngine engine = new TiledBlurEngine(TILE_SIZE, 3);
+        final Bitmap actual = engine.onBlur(input, radius);
+
+        assertArrayEquals(getPixels(expected), getPixels(actual));
+        engine.release();
+    }
+
+    private static Bitmap createBitmap() {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        final Random random = new Random(11);
+        for (int i = 0; i < pixels.length; i++) {
+            // 不透明像素，读写颜色整数与原始像素一致
+            pixels[i] = random.nextInt() | 0xff000000;
+        }
+
+        final Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        return bitmap;
+    }
+
+    private static int[] getPixels(final Bitmap bitmap) {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        bitmap.getPixels(pixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        return pixels;
+    }
+}
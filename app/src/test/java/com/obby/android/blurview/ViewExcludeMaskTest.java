@@ -0,0 +1,80 @@
+package com.obby.android.blurview;
+
+import android.app.Activity;
+import android.graphics.RectF;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 不模糊视图遮罩测试，不模糊视图在布局外移动时遮罩失效并按新位置重建
+ *
+ * @author obby-xiang
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ViewExcludeMaskTest {
+    private View mTarget;
+
+    private View mExclude;
+
+    private ViewExcludeMask mMask;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final FrameLayout root = new FrameLayout(activity);
+        mTarget = new View(activity);
+        root.addView(mTarget, new FrameLayout.LayoutParams(200, 200));
+        mExclude = new View(activity);
+        root.addView(mExclude, new FrameLayout.LayoutParams(50, 50));
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 200, 200);
+
+        mMask = new ViewExcludeMask();
+        mMask.setViews(new View[]{mExclude});
+        mMask.getPath(mTarget);
+    }
+
+    @Test
+    public void checkMoved_unchanged_keepsPath() {
+        assertFalse(mMask.checkMoved(mTarget));
+    }
+
+    @Test
+    public void checkMoved_translated_rebuildsPath() {
+        mExclude.setTranslationX(30f);
+
+        assertTrue(mMask.checkMoved(mTarget));
+        assertEquals(new RectF(30f, 0f, 80f, 50f), getBounds());
+        assertFalse(mMask.checkMoved(mTarget));
+    }
+
+    @Test
+    public void checkMoved_scaled_rebuildsPath() {
+        mExclude.setScaleX(2f);
+
+        assertTrue(mMask.checkMoved(mTarget));
+    }
+
+    @NonNull
+    private RectF getBounds() {
+        final RectF bounds = new RectF();
+        mMask.getPath(mTarget).computeBounds(bounds, true);
+        return bounds;
+    }
+}